@@ -6,9 +6,7 @@ import android.graphics.PointF;
 import android.util.AttributeSet;
 
 import com.junmeng.gsv.GestureSurfaceView;
-
-import java.util.ArrayList;
-import java.util.List;
+import com.junmeng.gsv.geometry.PointStore;
 
 /**
  * 集成GestureSurfaceView，然后实现自己的业务逻辑
@@ -17,7 +15,9 @@ import java.util.List;
 
 public class BusinessSurfaceView extends GestureSurfaceView {
 
-    List<PointF> pointList = new ArrayList<>();
+    PointStore pointList = new PointStore();
+    private float[] screenPoints = new float[0];//点的屏幕坐标
+    private float[] lines = new float[0];//点到中心点的连线
 
     boolean isPointToCenter=false;
 
@@ -41,13 +41,25 @@ public class BusinessSurfaceView extends GestureSurfaceView {
 
     @Override
     public void drawOther(Canvas c) {
-        for (PointF p : pointList) {
-            PointF pp = convertToNeedPoint(p, false);
-            c.drawCircle(pp.x, pp.y, 5, paint);
-            if(isPointToCenter){
-                c.drawLine(pp.x,pp.y,screenCenterX,screenCenterY,paint);
+        PointStore.Snapshot snap = pointList.snapshot();//绘制线程中读取快照，不受UI线程添加点的影响
+        int n = snap.size();
+        if (n == 0) {
+            return;
+        }
+        if (screenPoints.length < n * 2) {
+            screenPoints = new float[n * 4];
+            lines = new float[n * 8];
+        }
+        projectPoints(snap, screenPoints);
+        drawScreenPoints(c, screenPoints, n, 5, paint);
+        if (isPointToCenter) {
+            for (int i = 0; i < n; i++) {
+                lines[i * 4] = screenPoints[i * 2];
+                lines[i * 4 + 1] = screenPoints[i * 2 + 1];
+                lines[i * 4 + 2] = screenCenterX;
+                lines[i * 4 + 3] = screenCenterY;
             }
-
+            c.drawLines(lines, 0, n * 4, paint);
         }
 
 
@@ -55,7 +67,11 @@ public class BusinessSurfaceView extends GestureSurfaceView {
     }
 
     public void addNewPoint() {
-        pointList.add(getCurrentPoint());
+        PointF p = getCurrentPoint();
+        if (p != null) {
+            pointList.add(p.x, p.y);
+            invalidateFrame();
+        }
     }
 
     /**
@@ -64,6 +80,7 @@ public class BusinessSurfaceView extends GestureSurfaceView {
      */
     public void isPointToCenter(boolean bool){
         this.isPointToCenter=bool;
+        invalidateFrame();
     }
 
 
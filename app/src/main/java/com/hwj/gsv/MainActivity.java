@@ -14,6 +14,7 @@ import android.view.View;
 import android.widget.CompoundButton;
 
 import com.hwj.gsv.databinding.ActivityMainBinding;
+import com.junmeng.gsv.BaseSurfaceView;
 import com.junmeng.gsv.GestureSurfaceView;
 
 public class MainActivity extends AppCompatActivity {
@@ -24,6 +25,7 @@ public class MainActivity extends AppCompatActivity {
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         binding = DataBindingUtil.setContentView(this, R.layout.activity_main);
+        binding.svMap.setRenderMode(BaseSurfaceView.RENDER_MODE_WHEN_DIRTY);
         binding.svMap.setCenterBitmap(getBitmap(this, R.drawable.ic_center_24dp));
         binding.svMap.setBackgroundColor(Color.WHITE);
         binding.svMap.setMapCoordinate(GestureSurfaceView.COORDINATE_MAP_LEFT_DOWN);
@@ -0,0 +1,25 @@
+package com.junmeng.gsv.benchmark;
+
+import java.util.Random;
+
+/**
+ * 基准测试数据
+ */
+final class Data {
+
+    private Data() {
+    }
+
+    /**
+     * 生成在[min, min+range)内均匀分布的点
+     *
+     * @return x,y交替保存的坐标
+     */
+    static float[] randomPoints(int count, float min, float range, Random random) {
+        float[] xy = new float[count * 2];
+        for (int i = 0; i < xy.length; i++) {
+            xy[i] = min + random.nextFloat() * range;
+        }
+        return xy;
+    }
+}
@@ -0,0 +1,63 @@
+package com.junmeng.gsv.benchmark;
+
+import com.junmeng.gsv.geometry.IntList;
+import com.junmeng.gsv.geometry.PointGridIndex;
+import com.junmeng.gsv.geometry.RotatedRect;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 命中测试：旋转矩形的包含判断和网格索引的视口查询
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class HitTestBenchmark {
+
+    private static final float MAP_SIZE = 4096;
+
+    @Param({"1000", "100000", "1000000"})
+    int count;
+
+    private float[] xy;
+    private final RotatedRect rect = new RotatedRect();
+    private final PointGridIndex index = new PointGridIndex();
+    private final IntList out = new IntList();
+
+    @Setup
+    public void setup() {
+        xy = Data.randomPoints(count, -MAP_SIZE / 2, MAP_SIZE, new Random(1));
+        rect.set(-1000, -600, 1000, 600, 30);
+        index.reset(-MAP_SIZE / 2, -MAP_SIZE / 2, MAP_SIZE, MAP_SIZE);
+        for (int i = 0; i < count; i++) {
+            index.add(i, xy[i * 2], xy[i * 2 + 1]);
+        }
+    }
+
+    @Benchmark
+    public int rotatedRectContains() {
+        int hits = 0;
+        for (int i = 0, n = count * 2; i < n; i += 2) {
+            if (rect.contains(xy[i], xy[i + 1])) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+
+    @Benchmark
+    public int gridQueryViewport() {
+        index.query(-540, -960, 540, 960, out);
+        return out.size();
+    }
+}
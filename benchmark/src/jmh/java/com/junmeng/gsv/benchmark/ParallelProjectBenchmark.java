@@ -0,0 +1,55 @@
+package com.junmeng.gsv.benchmark;
+
+import com.junmeng.gsv.geometry.CameraTransform;
+import com.junmeng.gsv.geometry.ParallelPointProjector;
+import com.junmeng.gsv.geometry.PointMath;
+import com.junmeng.gsv.geometry.PointStore;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 帧准备阶段的投影与裁剪：顺序处理与按块并行处理
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ParallelProjectBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    int count;
+
+    private PointStore.Snapshot points;
+    private final CameraTransform camera = new CameraTransform();
+    private final ParallelPointProjector sequential = new ParallelPointProjector(null, ParallelPointProjector.DEFAULT_CHUNK_SIZE);
+    private final ParallelPointProjector parallel = new ParallelPointProjector(ParallelPointProjector.getDefaultPool(),
+            ParallelPointProjector.DEFAULT_CHUNK_SIZE);
+
+    @Setup
+    public void setup() {
+        float[] xy = Data.randomPoints(count, -2048, 4096, new Random(4));
+        PointStore store = new PointStore(count);
+        store.addAll(xy, 0, count);
+        points = store.snapshot();
+        camera.set(540, 960, 0.6f, PointMath.cos(25), PointMath.sin(25));
+    }
+
+    @Benchmark
+    public int sequentialProject() {
+        return sequential.project(points, null, camera, 0, 0, 1080, 1920);
+    }
+
+    @Benchmark
+    public int parallelProject() {
+        return parallel.project(points, null, camera, 0, 0, 1080, 1920);
+    }
+}
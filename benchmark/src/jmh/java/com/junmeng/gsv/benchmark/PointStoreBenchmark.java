@@ -0,0 +1,80 @@
+package com.junmeng.gsv.benchmark;
+
+import com.junmeng.gsv.geometry.PointStore;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 点集合的常用操作：逐个添加、批量添加、快照遍历和批量移除
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PointStoreBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    int count;
+
+    private float[] xy;
+    private float[] copy;
+    private PointStore filled;
+
+    @Setup
+    public void setup() {
+        xy = Data.randomPoints(count, -2048, 4096, new Random(3));
+        copy = new float[count * 2];
+        filled = new PointStore(count);
+        filled.addAll(xy, 0, count);
+    }
+
+    @Benchmark
+    public PointStore addEach() {
+        PointStore store = new PointStore();
+        for (int i = 0, n = count * 2; i < n; i += 2) {
+            store.add(xy[i], xy[i + 1]);
+        }
+        return store;
+    }
+
+    @Benchmark
+    public PointStore addAll() {
+        PointStore store = new PointStore();
+        store.addAll(xy, 0, count);
+        return store;
+    }
+
+    @Benchmark
+    public float snapshotIterate() {
+        PointStore.Snapshot snap = filled.snapshot();
+        float sum = 0;
+        for (int i = 0, n = snap.size(); i < n; i++) {
+            sum += snap.getX(i) + snap.getY(i);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public float[] snapshotCopyTo() {
+        PointStore.Snapshot snap = filled.snapshot();
+        snap.copyTo(0, snap.size(), copy, 0);
+        return copy;
+    }
+
+    @Benchmark
+    public PointStore removeRangeHalf() {
+        PointStore store = new PointStore(count);
+        store.addAll(xy, 0, count);
+        store.removeRange(count / 4, count * 3 / 4);
+        return store;
+    }
+}
@@ -0,0 +1,67 @@
+package com.junmeng.gsv.benchmark;
+
+import com.junmeng.gsv.geometry.CameraTransform;
+import com.junmeng.gsv.geometry.PointMath;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 点坐标与屏幕坐标的转换：逐点转换与批量转换
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PointTransformBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    int count;
+
+    private float[] xy;
+    private float[] out;
+    private final CameraTransform camera = new CameraTransform();
+
+    @Setup
+    public void setup() {
+        xy = Data.randomPoints(count, -2048, 4096, new Random(2));
+        out = new float[count * 2];
+        camera.set(540, 960, 1.7f, PointMath.cos(25), PointMath.sin(25));
+    }
+
+    @Benchmark
+    public float[] singleMapToScreen() {
+        for (int i = 0, n = count * 2; i < n; i += 2) {
+            out[i] = camera.toScreenX(xy[i], xy[i + 1]);
+            out[i + 1] = camera.toScreenY(xy[i], xy[i + 1]);
+        }
+        return out;
+    }
+
+    @Benchmark
+    public float[] bulkMapToScreen() {
+        camera.mapToScreen(xy, 0, out, 0, count);
+        return out;
+    }
+
+    @Benchmark
+    public float[] bulkScreenToMap() {
+        camera.screenToMap(xy, 0, out, 0, count);
+        return out;
+    }
+
+    @Benchmark
+    public float[] rotatePoints() {
+        System.arraycopy(xy, 0, out, 0, count * 2);
+        PointMath.rotatePoints(out, 0, count, 0, 0, PointMath.cos(25), PointMath.sin(25));
+        return out;
+    }
+}
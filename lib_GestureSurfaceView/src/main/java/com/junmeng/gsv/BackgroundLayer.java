@@ -0,0 +1,111 @@
+package com.junmeng.gsv;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapShader;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Shader;
+
+/**
+ * 背景图层，缓存按当前尺寸处理好的背景图，只在背景图或尺寸变化后重建
+ * 平铺模式使用BitmapShader直接绘制，不会生成屏幕大小的位图
+ */
+
+class BackgroundLayer {
+
+    private Bitmap source;//原始背景图
+    private int scaleMode = BaseSurfaceView.BACKGROUND_SCALE_STRETCH;
+    private int width, height;//绘制区域宽高
+
+    private Bitmap cachedBitmap;//处理后的背景图
+    private final Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private boolean isDirty = true;
+
+    synchronized void setBitmap(Bitmap bitmap) {
+        if (source != bitmap) {
+            source = bitmap;
+            isDirty = true;
+        }
+    }
+
+    synchronized Bitmap getBitmap() {
+        return source;
+    }
+
+    synchronized void setScaleMode(int mode) {
+        if (scaleMode != mode) {
+            scaleMode = mode;
+            isDirty = true;
+        }
+    }
+
+    synchronized int getScaleMode() {
+        return scaleMode;
+    }
+
+    synchronized void setSize(int w, int h) {
+        if (width != w || height != h) {
+            width = w;
+            height = h;
+            isDirty = true;
+        }
+    }
+
+    synchronized void draw(Canvas canvas) {
+        if (source == null || width <= 0 || height <= 0) {
+            return;
+        }
+        if (isDirty) {
+            rebuild();
+        }
+        if (scaleMode == BaseSurfaceView.BACKGROUND_SCALE_TILE) {
+            canvas.drawRect(0, 0, width, height, paint);
+        } else if (cachedBitmap != null) {
+            canvas.drawBitmap(cachedBitmap, 0, 0, null);
+        }
+    }
+
+    /**
+     * 按当前模式重建背景缓存
+     */
+    private void rebuild() {
+        isDirty = false;
+        releaseCache();
+        paint.setShader(null);
+        int sw = source.getWidth();
+        int sh = source.getHeight();
+        if (sw <= 0 || sh <= 0) {
+            return;
+        }
+        try {
+            switch (scaleMode) {
+                case BaseSurfaceView.BACKGROUND_SCALE_TILE:
+                    paint.setShader(new BitmapShader(source, Shader.TileMode.REPEAT, Shader.TileMode.REPEAT));
+                    break;
+                case BaseSurfaceView.BACKGROUND_SCALE_CENTER_CROP: {
+                    //按较大的比例缩放，只截取能显示出来的部分
+                    float scale = Math.max(width * 1.0f / sw, height * 1.0f / sh);
+                    int cw = Math.min(sw, Math.round(width / scale));
+                    int ch = Math.min(sh, Math.round(height / scale));
+                    Matrix m = new Matrix();
+                    m.setScale(width * 1.0f / cw, height * 1.0f / ch);
+                    cachedBitmap = Bitmap.createBitmap(source, (sw - cw) / 2, (sh - ch) / 2, cw, ch, m, true);
+                    break;
+                }
+                default:
+                    cachedBitmap = Bitmap.createScaledBitmap(source, width, height, true);
+                    break;
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void releaseCache() {
+        if (cachedBitmap != null && cachedBitmap != source) {
+            cachedBitmap.recycle();
+        }
+        cachedBitmap = null;
+    }
+}
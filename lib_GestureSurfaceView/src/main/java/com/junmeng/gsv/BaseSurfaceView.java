@@ -6,12 +6,17 @@ import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.PorterDuff;
+import android.os.SystemClock;
 import android.support.annotation.ColorInt;
+import android.support.annotation.IntDef;
 import android.util.AttributeSet;
 import android.util.TypedValue;
+import android.view.Choreographer;
 import android.view.SurfaceHolder;
 import android.view.SurfaceView;
 
+import com.junmeng.gsv.geometry.DisplayList;
+
 /**
  * 封装了绘图线程和背景等的设置
  * Created by HWJ on 2016/12/10.
@@ -19,7 +24,81 @@ import android.view.SurfaceView;
 
 public abstract class BaseSurfaceView extends SurfaceView implements SurfaceHolder.Callback2 {
     private static final String TAG = "BaseSurfaceView";
-    protected DrawThread drawThread;
+
+    /**
+     * 按需绘制，只有调用invalidateFrame后才会绘制下一帧
+     */
+    public static final int RENDER_MODE_WHEN_DIRTY = 0;
+    /**
+     * 持续绘制，绘制线程不断地重绘
+     */
+    public static final int RENDER_MODE_CONTINUOUSLY = 1;
+
+    @IntDef({RENDER_MODE_WHEN_DIRTY, RENDER_MODE_CONTINUOUSLY})
+    public @interface RenderMode {
+    }
+
+    /**
+     * 帧节奏跟随屏幕垂直同步信号
+     */
+    public static final int FRAME_PACING_VSYNC = 0;
+    /**
+     * 帧节奏按目标帧率的时间预算控制
+     */
+    public static final int FRAME_PACING_FIXED_RATE = 1;
+
+    @IntDef({FRAME_PACING_VSYNC, FRAME_PACING_FIXED_RATE})
+    public @interface FramePacing {
+    }
+
+    /**
+     * 背景图拉伸铺满
+     */
+    public static final int BACKGROUND_SCALE_STRETCH = 0;
+    /**
+     * 背景图等比缩放并裁剪居中部分铺满
+     */
+    public static final int BACKGROUND_SCALE_CENTER_CROP = 1;
+    /**
+     * 背景图按原始大小平铺
+     */
+    public static final int BACKGROUND_SCALE_TILE = 2;
+
+    @IntDef({BACKGROUND_SCALE_STRETCH, BACKGROUND_SCALE_CENTER_CROP, BACKGROUND_SCALE_TILE})
+    public @interface BackgroundScaleMode {
+    }
+
+    protected DrawThread drawThread;//每个view只有一个长期存在的绘制线程，Surface销毁时挂起而不是结束
+
+    private static final long STOP_TIMEOUT_MS = 500;//等待绘制线程结束当前帧或退出的最长时间
+    private final Object renderLock = new Object();//绘制线程等待下一帧时使用的锁
+    private SurfaceHolder renderSurface;//当前可绘制的Surface，没有时为null，由renderLock保护
+    private boolean isRenderPaused = false;//是否被用户暂停，由renderLock保护
+    private boolean isInFrame = false;//绘制线程是否正在绘制一帧，由renderLock保护
+    private int renderMode = RENDER_MODE_CONTINUOUSLY;//绘制模式
+    private boolean isFrameDirty = true;//是否需要重绘
+    private final FrameScheduler frameScheduler = new FrameScheduler(60);//帧调度器，默认60帧
+    private final BackgroundLayer backgroundLayer = new BackgroundLayer();//背景图层
+    private final FrameStats frameStats = new FrameStats();//帧耗时统计，只在绘制线程中更新
+    private volatile FrameMetricsListener frameMetricsListener;
+    private volatile DisplayList frameRecorder;//记录绘制线程每帧的绘制命令
+    private RecordingCanvas recordingCanvas;//只在绘制线程中使用
+    private RecordingCanvas offscreenCanvas;//recordFrame使用
+    private volatile SharedRenderScheduler sharedScheduler;//不为null时由共享调度器绘制，不再创建自己的绘制线程
+    final Runnable sharedFrameTask = new Runnable() {
+        @Override
+        public void run() {
+            runSharedFrame();
+        }
+    };
+    private boolean isFrameTickPosted = false;//是否已请求了UI线程的帧回调
+    private final Choreographer.FrameCallback frameTickCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            isFrameTickPosted = false;
+            onFrameTick(frameTimeNanos);
+        }
+    };
 
     public Paint paint = new Paint();
     public int paintColor = 0xffff0000;//画笔的颜色
@@ -30,7 +109,8 @@ public abstract class BaseSurfaceView extends SurfaceView implements SurfaceHold
     public float screenCenterX;//surfaceView的中心点x坐标
     public float screenCenterY;//surfaceView的中心点y坐标
 
-    protected int drawPauseTime = 50;//一次绘制后休息50ms
+    @Deprecated
+    protected int drawPauseTime = 50;//一次绘制后休息50ms，已由帧调度器代替
 
     public Bitmap bgBitmap = null;//背景图片
     public int bgColor = Color.TRANSPARENT;//背景颜色
@@ -65,16 +145,17 @@ public abstract class BaseSurfaceView extends SurfaceView implements SurfaceHold
         setFocusable(true);
         setFocusableInTouchMode(true);
         getHolder().addCallback(this);
-        //drawThread = new DrawThread(getHolder());
     }
 
     public void setLineColor(@ColorInt int color) {
         this.lineColor = color;
+        invalidateFrame();
     }
 
 
     public void setPointColor(@ColorInt int color) {
         this.pointColor = color;
+        invalidateFrame();
     }
 
     /**
@@ -85,6 +166,7 @@ public abstract class BaseSurfaceView extends SurfaceView implements SurfaceHold
     public void setPaintStrokeWidth(int px) {
         paintStrokeWidth = px;
         paint.setStrokeWidth(paintStrokeWidth);
+        invalidateFrame();
     }
 
     /**
@@ -94,6 +176,7 @@ public abstract class BaseSurfaceView extends SurfaceView implements SurfaceHold
      */
     public void setPointSize(int radius) {
         this.pointSize = radius;
+        invalidateFrame();
     }
 
     /**
@@ -103,6 +186,7 @@ public abstract class BaseSurfaceView extends SurfaceView implements SurfaceHold
      */
     public void setBackgroundColor(@ColorInt int color) {
         this.bgColor = color;
+        invalidateFrame();
     }
 
     /**
@@ -112,27 +196,374 @@ public abstract class BaseSurfaceView extends SurfaceView implements SurfaceHold
      */
     public void setBackgroundBitmap(Bitmap bg) {
         bgBitmap = bg;
+        backgroundLayer.setBitmap(bg);
+        invalidateFrame();
+    }
+
+    /**
+     * 设置背景图的缩放模式，默认BACKGROUND_SCALE_STRETCH
+     *
+     * @param mode
+     */
+    public void setBackgroundScaleMode(@BackgroundScaleMode int mode) {
+        backgroundLayer.setScaleMode(mode);
+        invalidateFrame();
+    }
+
+    /**
+     * 获得背景图的缩放模式
+     *
+     * @return
+     */
+    @BackgroundScaleMode
+    public int getBackgroundScaleMode() {
+        return backgroundLayer.getScaleMode();
     }
 
 
     /**
-     * 设置一次绘制后休息时间，默认50ms
+     * 设置一次绘制后休息时间
      *
      * @param time ms
+     * @deprecated 帧间隔已由帧调度器控制，请使用{@link #setTargetFrameRate(int)}，此方法会换算为对应的目标帧率
      */
+    @Deprecated
     public void setDrawPauseTime(int time) {
         drawPauseTime = time;
+        setTargetFrameRate(time > 0 ? Math.max(1, 1000 / time) : 0);
+    }
+
+    /**
+     * 设置目标帧率，默认60帧，绘制耗时会从帧间隔中扣除，绘制落后时会跳帧而不会堆积
+     *
+     * @param fps 小于等于0表示不限制帧率
+     */
+    public void setTargetFrameRate(int fps) {
+        frameScheduler.setTargetFrameRate(fps);
+    }
+
+    /**
+     * 获得目标帧率
+     *
+     * @return 0表示不限制帧率
+     */
+    public int getTargetFrameRate() {
+        return frameScheduler.getTargetFrameRate();
+    }
+
+    /**
+     * 设置帧节奏，默认FRAME_PACING_VSYNC
+     *
+     * @param pacing
+     */
+    public void setFramePacing(@FramePacing int pacing) {
+        frameScheduler.setVsyncEnabled(pacing == FRAME_PACING_VSYNC);
+    }
+
+    /**
+     * 获得帧节奏
+     *
+     * @return
+     */
+    @FramePacing
+    public int getFramePacing() {
+        return frameScheduler.isVsyncEnabled() ? FRAME_PACING_VSYNC : FRAME_PACING_FIXED_RATE;
+    }
+
+    /**
+     * 获得当前帧的开始时间(纳秒)，可用于基于时间的动画
+     *
+     * @return
+     */
+    public long getFrameTimeNanos() {
+        SharedRenderScheduler scheduler = sharedScheduler;
+        return scheduler != null ? scheduler.getLastFrameTimeNanos() : frameScheduler.getLastFrameTimeNanos();
+    }
+
+    /**
+     * 设置共享绘制调度器，多个view同时显示时可共用绘制线程，需要在Surface创建前(如onCreate中)调用
+     * 使用共享调度器后本view的帧率和帧节奏设置不再生效
+     *
+     * @param scheduler 如{@link SharedRenderScheduler#getDefault()}，为null时使用自己的绘制线程
+     */
+    public void setSharedRenderScheduler(SharedRenderScheduler scheduler) {
+        sharedScheduler = scheduler;
+    }
+
+    public SharedRenderScheduler getSharedRenderScheduler() {
+        return sharedScheduler;
+    }
+
+    /**
+     * 设置帧耗时监听器，每帧提交后在绘制线程中回调，可用于统计各阶段耗时、帧率和卡顿
+     *
+     * @param listener 为null时取消监听
+     */
+    public void setFrameMetricsListener(FrameMetricsListener listener) {
+        frameMetricsListener = listener;
+    }
+
+    /**
+     * 开始记录本帧某个阶段的耗时，同时开始一个同名的Trace片段，只能在绘制线程中调用
+     * 必须与{@link #endPhase(int)}成对调用
+     *
+     * @param phase 如{@link FrameStats#PHASE_OTHER}
+     */
+    protected final void beginPhase(int phase) {
+        frameStats.beginPhase(phase);
+    }
+
+    /**
+     * 结束记录本帧某个阶段的耗时
+     *
+     * @param phase
+     */
+    protected final void endPhase(int phase) {
+        frameStats.endPhase(phase);
+    }
+
+    /**
+     * 设置记录每帧绘制命令的DisplayList，绘制线程每帧会先清空再记录，同时正常绘制到屏幕
+     * 记录的数据只在绘制线程中更新，请在{@link FrameMetricsListener}的回调中读取
+     *
+     * @param recorder 为null时停止记录
+     */
+    public void setFrameRecorder(DisplayList recorder) {
+        frameRecorder = recorder;
+    }
+
+    /**
+     * 不经过Surface绘制一帧，只把绘制命令记录到out中，可用于统计每帧的绘制命令数、顶点数等
+     * 使用当前的画面大小，需在surfaceChanged之后调用
+     * 录制在调用线程中使用绘制线程的帧状态，只能在没有Surface(未创建或已销毁)或已调用pauseRendering时使用，
+     * 会等待正在绘制的一帧结束，录制期间绘制线程不会开始新的一帧
+     *
+     * @param out 会先被清空
+     * @return out
+     * @throws IllegalStateException 绘制线程正在运行时
+     */
+    public DisplayList recordFrame(DisplayList out) {
+        synchronized (renderLock) {
+            if (renderSurface != null && !isRenderPaused) {
+                throw new IllegalStateException("recordFrame() needs the surface to be destroyed or rendering to be paused");
+            }
+            if (!awaitFrameEndLocked()) {
+                throw new IllegalStateException("recordFrame() timed out waiting for the current frame to finish");
+            }
+            if (offscreenCanvas == null) {
+                offscreenCanvas = new RecordingCanvas(out);
+            }
+            offscreenCanvas.setDisplayList(out);
+            offscreenCanvas.setSize(screenWidth, screenHeight);
+            offscreenCanvas.reset();
+            out.reset();
+            onPrepareFrame();
+            drawBackground(offscreenCanvas);
+            doDraw(offscreenCanvas);
+            return out;
+        }
+    }
+
+    /**
+     * 设置绘制模式，默认为RENDER_MODE_CONTINUOUSLY
+     * 设置为RENDER_MODE_WHEN_DIRTY时，绘制线程在画面没有变化时会挂起，直到调用invalidateFrame
+     *
+     * @param mode
+     */
+    public void setRenderMode(@RenderMode int mode) {
+        renderMode = mode;
+        invalidateFrame();
+    }
+
+    /**
+     * 获得绘制模式
+     *
+     * @return
+     */
+    @RenderMode
+    public int getRenderMode() {
+        return renderMode;
+    }
+
+    /**
+     * 请求重绘一帧，可在任意线程调用
+     * 在绘制线程处理之前的多次请求会合并为一次绘制，子类修改了绘制相关的数据后应调用此方法
+     */
+    public void invalidateFrame() {
+        synchronized (renderLock) {
+            isFrameDirty = true;
+            renderLock.notifyAll();
+        }
+        SharedRenderScheduler scheduler = sharedScheduler;
+        if (scheduler != null) {
+            scheduler.requestFrame();
+        }
+    }
+
+    /**
+     * 等待下一帧，没有Surface、绘制被暂停或按需绘制模式下没有重绘请求时挂起，之后由帧调度器控制开始时间
+     * 等待期间收到的重绘请求会合并到这一帧
+     *
+     * @param thread 当前绘制线程
+     * @return 本帧绘制的Surface，绘制线程退出时为null
+     */
+    private SurfaceHolder awaitFrame(DrawThread thread) throws InterruptedException {
+        while (true) {
+            synchronized (renderLock) {
+                //上一帧已结束，唤醒等待中的surfaceDestroyed
+                isInFrame = false;
+                renderLock.notifyAll();
+                while (!thread.isQuit && !canRenderLocked()) {
+                    renderLock.wait();
+                }
+                if (thread.isQuit) {
+                    return null;
+                }
+            }
+            frameScheduler.awaitNextFrame();
+            synchronized (renderLock) {
+                if (thread.isQuit) {
+                    return null;
+                }
+                //等待期间Surface可能已被销毁或绘制被暂停，此时重新挂起
+                if (canRenderLocked()) {
+                    isFrameDirty = false;
+                    isInFrame = true;
+                    return renderSurface;
+                }
+            }
+        }
+    }
+
+    /**
+     * 由共享调度器的节拍线程调用，需要重绘且上一帧已完成时开始一帧
+     *
+     * @return 是否开始了一帧，是则接着在线程池中执行sharedFrameTask
+     */
+    boolean beginSharedFrame() {
+        synchronized (renderLock) {
+            if (isInFrame || !canRenderLocked()) {
+                return false;
+            }
+            isFrameDirty = false;
+            isInFrame = true;
+            return true;
+        }
+    }
+
+    /**
+     * 是否需要绘制下一帧
+     *
+     * @return
+     */
+    boolean isFrameRequested() {
+        synchronized (renderLock) {
+            return canRenderLocked();
+        }
+    }
+
+    private void runSharedFrame() {
+        SurfaceHolder holder;
+        synchronized (renderLock) {
+            holder = renderSurface;
+        }
+        try {
+            SharedRenderScheduler scheduler = sharedScheduler;
+            if (holder != null && scheduler != null) {
+                renderFrame(holder, scheduler.getFrameIntervalNanos());
+            }
+        } finally {
+            synchronized (renderLock) {
+                isInFrame = false;
+                renderLock.notifyAll();
+            }
+        }
+    }
+
+    private boolean canRenderLocked() {
+        return renderSurface != null && !isRenderPaused && (renderMode == RENDER_MODE_CONTINUOUSLY || isFrameDirty);
+    }
+
+    /**
+     * 暂停绘制，绘制线程挂起但不退出，可在Activity的onPause中调用
+     */
+    public void pauseRendering() {
+        synchronized (renderLock) {
+            isRenderPaused = true;
+            renderLock.notifyAll();
+        }
+        frameScheduler.release();
+    }
+
+    /**
+     * 恢复绘制
+     */
+    public void resumeRendering() {
+        frameScheduler.reset();
+        synchronized (renderLock) {
+            isRenderPaused = false;
+        }
+        invalidateFrame();
+    }
+
+    /**
+     * 绘制是否被暂停
+     *
+     * @return
+     */
+    public boolean isRenderingPaused() {
+        synchronized (renderLock) {
+            return isRenderPaused;
+        }
+    }
+
+    /**
+     * 请求在下一个垂直同步信号到来时于UI线程回调{@link #onFrameTick(long)}，只能在UI线程调用
+     * 同一帧内的多次请求只会回调一次，适合把高频的输入合并为每帧处理一次
+     */
+    protected void postFrameTick() {
+        if (!isFrameTickPosted) {
+            isFrameTickPosted = true;
+            Choreographer.getInstance().postFrameCallback(frameTickCallback);
+        }
+    }
+
+    /**
+     * UI线程的帧回调，由{@link #postFrameTick()}触发，子类可在此处理合并后的输入或推进动画
+     *
+     * @param frameTimeNanos 垂直同步信号的时间
+     */
+    protected void onFrameTick(long frameTimeNanos) {
     }
 
     @Override
     public void surfaceRedrawNeeded(SurfaceHolder surfaceHolder) {
-
+        invalidateFrame();
     }
 
     @Override
     public void surfaceCreated(SurfaceHolder surfaceHolder) {
-        drawThread = new DrawThread(surfaceHolder);
-        drawThread.start();
+        frameScheduler.reset();
+        frameStats.reset();
+        synchronized (renderLock) {
+            renderSurface = surfaceHolder;
+            isFrameDirty = true;
+            renderLock.notifyAll();
+        }
+        SharedRenderScheduler scheduler = sharedScheduler;
+        if (scheduler != null) {
+            if (drawThread != null) {//之前使用过自己的绘制线程
+                drawThread.quit();
+                drawThread = null;
+            }
+            scheduler.register(this);
+            return;
+        }
+        //绘制线程只在第一次或退出后才创建，之后Surface重建时复用
+        if (drawThread == null || drawThread.isQuit || !drawThread.isAlive()) {
+            drawThread = new DrawThread();
+            drawThread.start();
+        }
     }
 
     @Override
@@ -141,12 +572,62 @@ public abstract class BaseSurfaceView extends SurfaceView implements SurfaceHold
         screenHeight = i2;
         screenCenterX = screenWidth / 2.0f;
         screenCenterY = screenHeight / 2.0f;
-
+        backgroundLayer.setSize(screenWidth, screenHeight);
+        invalidateFrame();
     }
 
     @Override
     public void surfaceDestroyed(SurfaceHolder surfaceHolder) {
-        drawThread.stopDraw();
+        synchronized (renderLock) {
+            renderSurface = null;
+            renderLock.notifyAll();
+        }
+        frameScheduler.release();
+        SharedRenderScheduler scheduler = sharedScheduler;
+        if (scheduler != null) {
+            scheduler.unregister(this);
+        }
+        //此方法返回后Surface即失效，等待正在绘制的一帧结束，但最多等待STOP_TIMEOUT_MS
+        synchronized (renderLock) {
+            awaitFrameEndLocked();
+        }
+    }
+
+    /**
+     * 等待绘制线程正在绘制的一帧结束，最多等待STOP_TIMEOUT_MS，需持有renderLock
+     *
+     * @return 是否已经没有正在绘制的帧
+     */
+    private boolean awaitFrameEndLocked() {
+        long deadline = SystemClock.uptimeMillis() + STOP_TIMEOUT_MS;
+        long remaining = STOP_TIMEOUT_MS;
+        while (isInFrame && remaining > 0) {
+            try {
+                renderLock.wait(remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            remaining = deadline - SystemClock.uptimeMillis();
+        }
+        return !isInFrame;
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        //view不再显示，退出绘制线程，重新显示时会在surfaceCreated中重新创建
+        if (drawThread != null) {
+            drawThread.quit();
+            drawThread = null;
+        }
+    }
+
+    /**
+     * 在lockCanvas之前调用，准备本帧的数据(如相机状态、点的投影)，此时还没有占用Surface的缓冲区
+     * 子类重写时需要调用super
+     */
+    protected void onPrepareFrame() {
     }
 
     /**
@@ -168,56 +649,114 @@ public abstract class BaseSurfaceView extends SurfaceView implements SurfaceHold
             canvas.drawColor(bgColor);
         }
 
-        if (bgBitmap != null) {
-            try {
-                canvas.drawBitmap(Bitmap.createScaledBitmap(bgBitmap, getMeasuredWidth(), getMeasuredHeight(), true), 0, 0, null);
-            } catch (Exception e) {
-                e.printStackTrace();
+        if (bgBitmap != backgroundLayer.getBitmap()) {//兼容直接给bgBitmap赋值的情况
+            backgroundLayer.setBitmap(bgBitmap);
+        }
+        backgroundLayer.draw(canvas);
+    }
+
+    /**
+     * 绘制一帧并提交到Surface，在绘制线程或共享调度器的线程池中调用
+     *
+     * @param surfaceHolder
+     * @param intervalNanos 目标帧间隔
+     */
+    private void renderFrame(SurfaceHolder surfaceHolder, long intervalNanos) {
+        Canvas canvas = null;
+        frameStats.beginFrame(intervalNanos);
+        try {
+            onPrepareFrame();
+            frameStats.beginPhase(FrameStats.PHASE_LOCK_CANVAS);
+            canvas = surfaceHolder.lockCanvas();
+            frameStats.endPhase(FrameStats.PHASE_LOCK_CANVAS);
+            //Log.i(TAG, "" + canvas);
+            if (canvas != null) {
+                Canvas target = canvas;
+                DisplayList recorder = frameRecorder;
+                if (recorder != null) {//包装一层，记录的同时转发给Surface的canvas
+                    if (recordingCanvas == null) {
+                        recordingCanvas = new RecordingCanvas(recorder);
+                    }
+                    recorder.reset();
+                    recordingCanvas.setDisplayList(recorder);
+                    recordingCanvas.setTarget(canvas);
+                    recordingCanvas.reset();
+                    target = recordingCanvas;
+                }
+                frameStats.beginPhase(FrameStats.PHASE_BACKGROUND);
+                drawBackground(target);
+                frameStats.endPhase(FrameStats.PHASE_BACKGROUND);
+                doDraw(target);
+            }
+        } finally {
+            if (canvas != null) {
+                frameStats.beginPhase(FrameStats.PHASE_UNLOCK_POST);
+                surfaceHolder.unlockCanvasAndPost(canvas);
+                frameStats.endPhase(FrameStats.PHASE_UNLOCK_POST);
             }
+            frameStats.endFrame(canvas != null);
+        }
+        FrameMetricsListener listener = frameMetricsListener;
+        if (canvas != null && listener != null) {
+            listener.onFrameMetrics(frameStats);
         }
     }
 
     public class DrawThread extends Thread {
-        SurfaceHolder surfaceHolder;
 
-        boolean isRunning = true;
+        volatile boolean isQuit = false;
 
-        public DrawThread(SurfaceHolder surfaceHolder) {
-            this.surfaceHolder = surfaceHolder;
+        public DrawThread() {
+            super(TAG + "-DrawThread");
         }
 
         @Override
         public void run() {
+            try {
+                renderLoop();
+            } catch (InterruptedException e) {
+                //退出
+            } finally {
+                synchronized (renderLock) {
+                    isInFrame = false;
+                    renderLock.notifyAll();
+                }
+            }
+        }
+
+        private void renderLoop() throws InterruptedException {
+            SurfaceHolder surfaceHolder;
+            while ((surfaceHolder = awaitFrame(this)) != null) {
+                renderFrame(surfaceHolder, frameScheduler.getFrameIntervalNanos());
+            }
+        }
 
-            Canvas canvas = null;
-            while (isRunning) {
+        /**
+         * 退出绘制线程，最多等待STOP_TIMEOUT_MS让其结束当前帧
+         */
+        public void quit() {
+            synchronized (renderLock) {
+                isQuit = true;
+                renderLock.notifyAll();
+            }
+            frameScheduler.release();
+            if (Thread.currentThread() != this) {
                 try {
-                    canvas = surfaceHolder.lockCanvas();
-                    //Log.i(TAG, "" + canvas);
-                    if (canvas != null) {
-                        drawBackground(canvas);
-                        doDraw(canvas);
-                        if (drawPauseTime > 0) {
-                            Thread.sleep(drawPauseTime);//通过它来控制帧数执行一次绘制后休息50ms)
-                        }
-                    }
+                    join(STOP_TIMEOUT_MS);
                 } catch (InterruptedException e) {
-                    e.printStackTrace();
-                } finally {
-                    if (canvas != null) {
-                        surfaceHolder.unlockCanvasAndPost(canvas);
-
-                    }
+                    Thread.currentThread().interrupt();
                 }
             }
-
         }
 
         /**
          * 停止绘制
+         *
+         * @deprecated 使用{@link #quit()}
          */
+        @Deprecated
         public void stopDraw() {
-            isRunning = false;
+            quit();
         }
     }
 
@@ -2,6 +2,8 @@ package com.junmeng.gsv;
 
 import android.graphics.PointF;
 
+import com.junmeng.gsv.geometry.PointMath;
+
 /**
  * Created by HWJ on 2016/12/13.
  */
@@ -17,13 +19,76 @@ public class CalculateUtil {
      * @return 旋转后的点的坐标
      */
     public static PointF getPointAfterRotate(PointF a, PointF o, float rotate) {
-        PointF b = new PointF();
+        return getPointAfterRotate(a, o, rotate, new PointF());
+    }
+
+    /**
+     * 求a点绕o点旋转rotate度后的点的坐标，结果写入out，不分配新对象
+     *
+     * @param a      原始点
+     * @param o      圆点，即围绕的中心点
+     * @param rotate 旋转度数，正为顺时针，负为逆时针
+     * @param out    保存结果，可以与a是同一个对象
+     * @return out
+     */
+    public static PointF getPointAfterRotate(PointF a, PointF o, float rotate, PointF out) {
         if (a == null || o == null) {
-            return b;
+            out.set(0, 0);
+            return out;
         }
         double angle = Math.toRadians(rotate);//将角度转为弧度
-        b.x = (float) ((a.x - o.x) * Math.cos(angle) - (a.y - o.y) * Math.sin(angle) + o.x);
-        b.y = (float) ((a.x - o.x) * Math.sin(angle) + (a.y - o.y) * Math.cos(angle) + o.y);
-        return b;
+        return getPointAfterRotate(a.x, a.y, o.x, o.y, (float) Math.cos(angle), (float) Math.sin(angle), out);
+    }
+
+    /**
+     * 求(x,y)绕(ox,oy)旋转后的点的坐标，使用预先计算好的三角函数值，适合同一角度下的大量计算
+     *
+     * @param x   原始点x
+     * @param y   原始点y
+     * @param ox  中心点x
+     * @param oy  中心点y
+     * @param cos 旋转角度的余弦值，见{@link #cos(float)}
+     * @param sin 旋转角度的正弦值，见{@link #sin(float)}
+     * @param out 保存结果
+     * @return out
+     */
+    public static PointF getPointAfterRotate(float x, float y, float ox, float oy, float cos, float sin, PointF out) {
+        out.set(PointMath.rotateX(x, y, ox, oy, cos, sin), PointMath.rotateY(x, y, ox, oy, cos, sin));
+        return out;
+    }
+
+    /**
+     * 将数组中的点绕(ox,oy)原地旋转
+     *
+     * @param pts    x,y交替保存的坐标
+     * @param offset 数组中的起始位置
+     * @param count  点的个数
+     * @param ox     中心点x
+     * @param oy     中心点y
+     * @param cos    旋转角度的余弦值
+     * @param sin    旋转角度的正弦值
+     */
+    public static void rotatePoints(float[] pts, int offset, int count, float ox, float oy, float cos, float sin) {
+        PointMath.rotatePoints(pts, offset, count, ox, oy, cos, sin);
+    }
+
+    /**
+     * 角度的余弦值
+     *
+     * @param degrees 角度
+     * @return
+     */
+    public static float cos(float degrees) {
+        return PointMath.cos(degrees);
+    }
+
+    /**
+     * 角度的正弦值
+     *
+     * @param degrees 角度
+     * @return
+     */
+    public static float sin(float degrees) {
+        return PointMath.sin(degrees);
     }
 }
@@ -0,0 +1,49 @@
+package com.junmeng.gsv;
+
+import android.graphics.Matrix;
+
+import com.junmeng.gsv.geometry.CameraTransform;
+
+/**
+ * 地图的相机状态，即地图矩阵及由它派生的位置、缩放、旋转等数据
+ * UI线程修改地图后复制一份发布给绘制线程，绘制线程在一帧内只使用同一份状态
+ */
+
+class CameraState {
+
+    final Matrix matrix = new Matrix();//原图坐标到屏幕坐标
+    final Matrix pointMatrix = new Matrix();//点坐标到屏幕坐标
+    final Matrix inversePointMatrix = new Matrix();//屏幕坐标到点坐标
+    boolean isInvertible = true;
+    final CameraTransform transform = new CameraTransform();//点坐标与屏幕坐标的变换，与pointMatrix等价
+
+    float centerX, centerY;//地图中心点
+    float scale = 1.0f;
+    float rotate = 0;
+    float cos = 1, sin = 0;//旋转角度的三角函数值
+    int mapWidth, mapHeight;//经过缩放的地图宽高
+    int srcMapWidth, srcMapHeight;//原地图宽高
+    final RotateRectF rect = new RotateRectF();//地图的rect
+    long version;//每次变化加1
+
+    void set(CameraState o) {
+        matrix.set(o.matrix);
+        pointMatrix.set(o.pointMatrix);
+        inversePointMatrix.set(o.inversePointMatrix);
+        isInvertible = o.isInvertible;
+        transform.set(o.transform);
+        centerX = o.centerX;
+        centerY = o.centerY;
+        scale = o.scale;
+        rotate = o.rotate;
+        cos = o.cos;
+        sin = o.sin;
+        mapWidth = o.mapWidth;
+        mapHeight = o.mapHeight;
+        srcMapWidth = o.srcMapWidth;
+        srcMapHeight = o.srcMapHeight;
+        rect.set(o.rect);
+        rect.setRotate(o.rect.getRotate());
+        version = o.version;
+    }
+}
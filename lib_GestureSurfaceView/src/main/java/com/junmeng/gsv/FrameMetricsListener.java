@@ -0,0 +1,13 @@
+package com.junmeng.gsv;
+
+/**
+ * 帧耗时监听器，每帧提交到屏幕后在绘制线程中回调
+ * 回调中不要做耗时操作，需要在其他线程使用数据时请先复制出来
+ */
+
+public interface FrameMetricsListener {
+    /**
+     * @param stats 帧耗时统计，对象会被复用，只在回调期间有效
+     */
+    void onFrameMetrics(FrameStats stats);
+}
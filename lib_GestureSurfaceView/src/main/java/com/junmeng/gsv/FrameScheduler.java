@@ -0,0 +1,166 @@
+package com.junmeng.gsv;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
+/**
+ * 帧调度器，负责控制绘制线程的帧率
+ * 支持两种节奏：跟随屏幕垂直同步信号(Choreographer)或按目标帧率的时间预算
+ * 每帧的等待时间会扣除实际绘制耗时，落后时直接跳过错过的帧而不是排队补画
+ */
+
+class FrameScheduler {
+
+    private static final long NANOS_PER_SECOND = 1000000000L;
+    private static final long VSYNC_TIMEOUT_MS = 100;//等待垂直同步信号的最长时间，超时后重新请求，避免丢失的信号使绘制线程永久挂起
+
+    private final Object lock = new Object();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private volatile long frameIntervalNanos;//目标帧间隔，0表示不限制
+    private volatile boolean isVsync = true;//是否跟随垂直同步信号
+    private long nextFrameTimeNanos;//下一帧的最早开始时间
+    private long lastFrameTimeNanos;//上一帧的开始时间
+
+    private long lastVsyncTimeNanos;//最近一次垂直同步信号的时间
+    private long vsyncCount;//收到的垂直同步信号个数
+    private boolean isVsyncRequested = false;//是否已向Choreographer请求了回调
+    private boolean isReleased = false;
+
+    private final Choreographer.FrameCallback vsyncCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            synchronized (lock) {
+                isVsyncRequested = false;
+                lastVsyncTimeNanos = frameTimeNanos;
+                vsyncCount++;
+                lock.notifyAll();
+            }
+        }
+    };
+
+    private final Runnable postVsyncRunnable = new Runnable() {
+        @Override
+        public void run() {
+            Choreographer.getInstance().postFrameCallback(vsyncCallback);
+        }
+    };
+
+    FrameScheduler(int fps) {
+        setTargetFrameRate(fps);
+    }
+
+    /**
+     * 设置目标帧率
+     *
+     * @param fps 小于等于0表示不限制
+     */
+    void setTargetFrameRate(int fps) {
+        frameIntervalNanos = fps > 0 ? NANOS_PER_SECOND / fps : 0;
+    }
+
+    int getTargetFrameRate() {
+        long interval = frameIntervalNanos;
+        return interval > 0 ? (int) (NANOS_PER_SECOND / interval) : 0;
+    }
+
+    long getFrameIntervalNanos() {
+        return frameIntervalNanos;
+    }
+
+    void setVsyncEnabled(boolean enabled) {
+        isVsync = enabled;
+    }
+
+    boolean isVsyncEnabled() {
+        return isVsync;
+    }
+
+    /**
+     * 重新开始调度，绘制线程启动时调用
+     */
+    void reset() {
+        synchronized (lock) {
+            isReleased = false;
+            isVsyncRequested = false;
+            nextFrameTimeNanos = 0;
+            lastFrameTimeNanos = 0;
+        }
+    }
+
+    /**
+     * 唤醒并停止等待中的绘制线程
+     */
+    void release() {
+        synchronized (lock) {
+            isReleased = true;
+            //已排队的请求会被移除，之后需要重新请求
+            isVsyncRequested = false;
+            lock.notifyAll();
+        }
+        mainHandler.removeCallbacks(postVsyncRunnable);
+    }
+
+    /**
+     * 在绘制线程中调用，阻塞直到下一帧可以开始绘制
+     *
+     * @return 本帧的开始时间(纳秒)
+     */
+    long awaitNextFrame() throws InterruptedException {
+        long interval = frameIntervalNanos;
+        long now = System.nanoTime();
+        synchronized (lock) {
+            if (isVsync) {
+                //等待一个不早于目标时间的垂直同步信号，期间错过的信号直接丢弃
+                long startCount = vsyncCount;
+                long target = nextFrameTimeNanos - interval / 4;
+                while (!isReleased && (vsyncCount == startCount || lastVsyncTimeNanos < target)) {
+                    requestVsyncLocked();
+                    long waitStart = System.nanoTime();
+                    lock.wait(VSYNC_TIMEOUT_MS);
+                    if (vsyncCount == startCount && System.nanoTime() - waitStart >= VSYNC_TIMEOUT_MS * 1000000) {
+                        //超时仍未收到信号，请求可能已丢失，允许重新请求
+                        isVsyncRequested = false;
+                    }
+                }
+                now = System.nanoTime();
+            } else if (interval > 0) {
+                long wait = nextFrameTimeNanos - now;
+                while (!isReleased && wait > 0) {
+                    lock.wait(wait / 1000000, (int) (wait % 1000000));
+                    now = System.nanoTime();
+                    wait = nextFrameTimeNanos - now;
+                }
+            }
+            if (interval > 0) {
+                if (nextFrameTimeNanos == 0 || now - nextFrameTimeNanos >= interval) {
+                    //落后超过一帧则跳过错过的帧，从当前时间重新对齐
+                    nextFrameTimeNanos = now + interval;
+                } else {
+                    nextFrameTimeNanos += interval;
+                }
+            }
+            lastFrameTimeNanos = now;
+            return now;
+        }
+    }
+
+    /**
+     * 获得上一帧的开始时间(纳秒)
+     *
+     * @return
+     */
+    long getLastFrameTimeNanos() {
+        synchronized (lock) {
+            return lastFrameTimeNanos;
+        }
+    }
+
+    private void requestVsyncLocked() {
+        if (!isVsyncRequested) {
+            isVsyncRequested = true;
+            mainHandler.post(postVsyncRunnable);
+        }
+    }
+}
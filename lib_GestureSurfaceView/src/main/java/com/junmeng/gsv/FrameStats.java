@@ -0,0 +1,242 @@
+package com.junmeng.gsv;
+
+import android.os.Build;
+import android.os.Trace;
+
+import java.util.Arrays;
+
+/**
+ * 绘制线程的帧耗时统计，记录每帧各阶段的耗时和最近若干帧的总耗时
+ * 可计算耗时的百分位数、帧率和超出帧预算(卡顿)的帧数，各阶段同时输出为systrace/perfetto的Trace片段
+ * 统计数据只在绘制线程中更新，{@link FrameMetricsListener}的回调也在绘制线程中，读取时无需同步
+ */
+
+public final class FrameStats {
+
+    /**
+     * 等待lockCanvas
+     */
+    public static final int PHASE_LOCK_CANVAS = 0;
+    /**
+     * 绘制背景
+     */
+    public static final int PHASE_BACKGROUND = 1;
+    /**
+     * 准备本帧数据(相机状态、点快照、空间索引、点的投影)，在lockCanvas之前
+     */
+    public static final int PHASE_PREPARE = 2;
+    /**
+     * 绘制地图
+     */
+    public static final int PHASE_MAP = 3;
+    /**
+     * 绘制添加点
+     */
+    public static final int PHASE_POINTS = 4;
+    /**
+     * drawOther
+     */
+    public static final int PHASE_OTHER = 5;
+    /**
+     * 绘制中心图标
+     */
+    public static final int PHASE_CENTER_ICON = 6;
+    /**
+     * 绘制参考系
+     */
+    public static final int PHASE_REFERENCE = 7;
+    /**
+     * unlockCanvasAndPost
+     */
+    public static final int PHASE_UNLOCK_POST = 8;
+    /**
+     * 绘制地图图层
+     */
+    public static final int PHASE_OVERLAYS = 9;
+
+    public static final int PHASE_COUNT = 10;
+
+    private static final String[] PHASE_NAMES = {"GSV:lockCanvas", "GSV:background", "GSV:prepare", "GSV:map",
+            "GSV:points", "GSV:drawOther", "GSV:centerIcon", "GSV:reference", "GSV:unlockCanvasAndPost", "GSV:overlays"};
+    private static final String FRAME_SECTION = "GSV:frame";
+    private static final boolean IS_TRACE_SUPPORTED = Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2;
+
+    private static final int WINDOW = 120;//统计最近多少帧
+    private static final long DEFAULT_BUDGET_NANOS = 16666667;//不限帧率时按60帧计算预算
+
+    private final long[] phaseNanos = new long[PHASE_COUNT];//当前帧各阶段的耗时
+    private final long[] phaseStart = new long[PHASE_COUNT];
+    private long frameStartNanos;
+    private long frameNanos;//上一帧的总耗时
+    private long budgetNanos = DEFAULT_BUDGET_NANOS;
+
+    private final long[] durations = new long[WINDOW];//最近各帧的总耗时
+    private final long[] startTimes = new long[WINDOW];//最近各帧的开始时间
+    private final long[] sorted = new long[WINDOW];//计算百分位数用
+    private int index = 0;
+    private int count = 0;
+    private boolean isSortedValid = false;
+    private long totalFrames = 0;
+    private long jankFrames = 0;
+
+    FrameStats() {
+    }
+
+    /**
+     * 开始一帧
+     *
+     * @param intervalNanos 目标帧间隔，0表示不限帧率
+     */
+    void beginFrame(long intervalNanos) {
+        budgetNanos = intervalNanos > 0 ? intervalNanos : DEFAULT_BUDGET_NANOS;
+        Arrays.fill(phaseNanos, 0);
+        if (IS_TRACE_SUPPORTED) {
+            Trace.beginSection(FRAME_SECTION);
+        }
+        frameStartNanos = System.nanoTime();
+    }
+
+    void beginPhase(int phase) {
+        if (IS_TRACE_SUPPORTED) {
+            Trace.beginSection(PHASE_NAMES[phase]);
+        }
+        phaseStart[phase] = System.nanoTime();
+    }
+
+    void endPhase(int phase) {
+        phaseNanos[phase] += System.nanoTime() - phaseStart[phase];
+        if (IS_TRACE_SUPPORTED) {
+            Trace.endSection();
+        }
+    }
+
+    /**
+     * 结束一帧
+     *
+     * @param isPosted 本帧是否已提交到屏幕，未提交的帧不计入统计
+     */
+    void endFrame(boolean isPosted) {
+        long now = System.nanoTime();
+        if (IS_TRACE_SUPPORTED) {
+            Trace.endSection();
+        }
+        if (!isPosted) {
+            return;
+        }
+        frameNanos = now - frameStartNanos;
+        durations[index] = frameNanos;
+        startTimes[index] = frameStartNanos;
+        index = (index + 1) % WINDOW;
+        if (count < WINDOW) {
+            count++;
+        }
+        isSortedValid = false;
+        totalFrames++;
+        if (frameNanos > budgetNanos) {
+            jankFrames++;
+        }
+    }
+
+    /**
+     * 获得阶段名称，与Trace中的片段名称一致
+     *
+     * @param phase
+     * @return
+     */
+    public static String getPhaseName(int phase) {
+        return PHASE_NAMES[phase];
+    }
+
+    /**
+     * 获得上一帧某个阶段的耗时
+     *
+     * @param phase 如{@link #PHASE_OTHER}
+     * @return 纳秒
+     */
+    public long getPhaseNanos(int phase) {
+        return phaseNanos[phase];
+    }
+
+    /**
+     * 获得上一帧的总耗时，从lockCanvas之前准备本帧数据开始到unlockCanvasAndPost结束
+     * 包括{@link #PHASE_PREPARE}，即点的投影等在lockCanvas之前完成的工作，只看占用Surface缓冲区的时间时可减去该阶段的耗时
+     *
+     * @return 纳秒
+     */
+    public long getFrameNanos() {
+        return frameNanos;
+    }
+
+    /**
+     * 获得一帧的耗时预算，即目标帧间隔
+     *
+     * @return 纳秒
+     */
+    public long getBudgetNanos() {
+        return budgetNanos;
+    }
+
+    /**
+     * 获得最近若干帧总耗时的百分位数
+     *
+     * @param percentile 0~100，如50、90、99
+     * @return 纳秒，没有数据时为0
+     */
+    public long getPercentileNanos(float percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        if (!isSortedValid) {
+            System.arraycopy(durations, 0, sorted, 0, count);
+            Arrays.sort(sorted, 0, count);
+            isSortedValid = true;
+        }
+        int i = (int) Math.ceil(percentile / 100 * count) - 1;
+        return sorted[Math.max(0, Math.min(count - 1, i))];
+    }
+
+    /**
+     * 获得最近若干帧的平均帧率
+     *
+     * @return
+     */
+    public float getFps() {
+        if (count < 2) {
+            return 0;
+        }
+        int last = (index - 1 + WINDOW) % WINDOW;
+        int first = (index - count + WINDOW) % WINDOW;
+        long span = startTimes[last] - startTimes[first];
+        return span > 0 ? (count - 1) * 1000000000.0f / span : 0;
+    }
+
+    /**
+     * 获得总耗时超出预算的帧数
+     *
+     * @return
+     */
+    public long getJankCount() {
+        return jankFrames;
+    }
+
+    /**
+     * 获得已统计的总帧数
+     *
+     * @return
+     */
+    public long getFrameCount() {
+        return totalFrames;
+    }
+
+    /**
+     * 清空统计数据
+     */
+    void reset() {
+        index = 0;
+        count = 0;
+        isSortedValid = false;
+        totalFrames = 0;
+        jankFrames = 0;
+        frameNanos = 0;
+    }
+}
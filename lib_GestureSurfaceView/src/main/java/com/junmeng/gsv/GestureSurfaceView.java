@@ -1,5 +1,6 @@
 package com.junmeng.gsv;
 
+import android.animation.TimeInterpolator;
 import android.content.Context;
 import android.graphics.Bitmap;
 import android.graphics.Canvas;
@@ -8,6 +9,9 @@ import android.graphics.Matrix;
 import android.graphics.Paint;
 import android.graphics.Path;
 import android.graphics.PointF;
+import android.graphics.RectF;
+import android.os.Handler;
+import android.os.Looper;
 import android.support.annotation.ColorInt;
 import android.support.annotation.IntDef;
 import android.support.annotation.IntRange;
@@ -15,11 +19,24 @@ import android.util.AttributeSet;
 import android.util.Log;
 import android.view.MotionEvent;
 import android.view.SurfaceHolder;
-
-import java.util.ArrayList;
+import android.view.VelocityTracker;
+import android.view.ViewConfiguration;
+import android.view.animation.AccelerateDecelerateInterpolator;
+
+import com.junmeng.gsv.geometry.CameraTransform;
+import com.junmeng.gsv.geometry.DisplayList;
+import com.junmeng.gsv.geometry.IntList;
+import com.junmeng.gsv.geometry.ParallelPointProjector;
+import com.junmeng.gsv.geometry.PointGridIndex;
+import com.junmeng.gsv.geometry.PointQueue;
+import com.junmeng.gsv.geometry.PointStore;
+import com.junmeng.gsv.geometry.ReadOnlyPoints;
+
+import java.util.AbstractList;
 import java.util.List;
-
-import static com.junmeng.gsv.CalculateUtil.getPointAfterRotate;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * 此类封装了对设置的图片的手势操作，包括拖动、缩放、旋转
@@ -70,6 +87,36 @@ public class GestureSurfaceView extends BaseSurfaceView {
      * 缩放或旋转
      */
     public static final int ONTOUCH_MODE_SCALE_OR_ROTATE = 1;
+    /**
+     * 两指手势同时拖动、缩放和旋转，缩放比例与两指距离成正比
+     */
+    public static final int GESTURE_MODE_SIMULTANEOUS = 0;
+    /**
+     * 旧的两指手势，每次只旋转或按灵敏度缩放一级，不能拖动
+     */
+    public static final int GESTURE_MODE_STEPPED = 1;
+
+    @IntDef({GESTURE_MODE_SIMULTANEOUS, GESTURE_MODE_STEPPED})
+    public @interface GestureMode {
+    }
+
+    /**
+     * 提交队列满时丢弃最旧的点
+     */
+    public static final int SUBMIT_POLICY_DROP_OLDEST = 0;
+    /**
+     * 按id合并，已存在相同id的点时只更新其坐标，同一帧内多次提交只保留最后一次，队列满时丢弃最旧的点
+     */
+    public static final int SUBMIT_POLICY_COALESCE_BY_ID = 1;
+    /**
+     * 提交队列满时提交线程等待，在UI线程提交时按SUBMIT_POLICY_DROP_OLDEST处理
+     */
+    public static final int SUBMIT_POLICY_BLOCK = 2;
+
+    @IntDef({SUBMIT_POLICY_DROP_OLDEST, SUBMIT_POLICY_COALESCE_BY_ID, SUBMIT_POLICY_BLOCK})
+    public @interface SubmitPolicy {
+    }
+
     /**
      * 地图坐标系以左上为原点
      */
@@ -97,11 +144,16 @@ public class GestureSurfaceView extends BaseSurfaceView {
     }
 
     private Matrix matrix = new Matrix();
+    private final Matrix gestureMatrix = new Matrix();//一次手势更新的组合变换
 
     private Bitmap centerBitmap;//中心点定位位图
     private int centerBitmapPosition = CENTER_BITMAP_POSITION_CENTER;
 
-    public  Bitmap mapBitmap;//地图位图
+    public volatile Bitmap mapBitmap;//地图位图
+    private volatile MapPyramid mapPyramid;//地图的多级缩小图
+    private boolean isMapMipmapEnabled = true;//是否生成多级缩小图
+    private volatile TiledMapLayer tiledMapLayer;//瓦片地图，用于超大地图，与mapBitmap只会有一个生效
+    private int tileCacheBytes = (int) Math.min(Runtime.getRuntime().maxMemory() / 8, Integer.MAX_VALUE);//瓦片缓存大小
     public  RotateRectF mapRectf = new RotateRectF();//地图的rect
     public  int srcMapWidth, srcMapHeight;//原地图宽高
     public  int mapWidth, mapHeight;//当前图实际宽高（经过缩放的）
@@ -120,14 +172,61 @@ public class GestureSurfaceView extends BaseSurfaceView {
     private boolean isMapInit = false;//地图是否已经初始化
 
     private int scaleSsensitivity = 30;//缩放灵敏度，100最高
+    private int gestureMode = GESTURE_MODE_SIMULTANEOUS;//两指手势的处理方式
     private OnGestureListener onGestureListener;
-    private List<PointF> points = new ArrayList<>();//添加在地图上的点,注意此List保存的数据不是真实的点的坐标，需要根据坐标系计算才能得到对应的坐标
+    private final PointStore points = new PointStore();//添加在地图上的点,注意保存的数据不是真实的点的坐标，需要根据坐标系计算才能得到对应的坐标
+    private final List<PointF> pointsList = new PointListAdapter();//兼容旧接口的List视图
+    private final PointGridIndex pointIndex = new PointGridIndex();//添加点的空间索引，坐标与points一致
+    private final PointF tempPoint = new PointF();
+    private final float[] tempCoords = new float[2];
+
+    //UI线程修改地图后将相机状态复制到三缓冲中发布，绘制线程每帧开始时取最新的一份，整帧使用同一份状态
+    private final CameraState liveCamera = new CameraState();//UI线程的相机状态
+    private final TripleBuffer<CameraState> cameraBuffer = new TripleBuffer<>(new CameraState(), new CameraState(), new CameraState());
+    private CameraState frameCamera = new CameraState();//绘制线程当前帧的相机状态
+    private PointStore.Snapshot framePoints;//绘制线程当前帧的点快照
+    private volatile Thread drawingThread;//执行doDraw的线程
+    //点的空间索引只在绘制线程中根据点快照同步
+    private long indexedStructureVersion = -1;
+    private long indexedMoveVersion = -1;
+    private int indexedSize;
+    private int indexedMapWidth = -1, indexedMapHeight = -1;
+    private float[] screenPoints = new float[64];//批量变换后的屏幕坐标，x,y交替
+    private final Paint batchPaint = new Paint();//批量绘制点使用的画笔
+    private final Path referencePath = new Path();//参考系中的地图边框
+    private final PointF dLeftTop = new PointF(), dLeftDown = new PointF(), dRightTop = new PointF(), dRightDown = new PointF();//地图的四个角点
+    private final IntList visiblePoints = new IntList();//当前帧可见的点的序号
+    private final ProjectionCache addPointsCache = new ProjectionCache(points, 0);//添加点的投影，在lockCanvas之前完成，地图和点不变时复用
+    private final ParallelPointProjector otherProjector = ProjectionCache.createProjector();//drawMapPoints使用
+    private final List<ProjectionCache> projectionCaches = new CopyOnWriteArrayList<>();//子类注册的投影缓存
+
+    //其他线程通过submitPoints提交的点先放入无锁队列，UI线程每帧取出后写入points
+    private static final int SUBMIT_QUEUE_CAPACITY = 8192;
+    private static final long SUBMIT_BLOCK_PARK_NANOS = 1000000;//队列满时提交线程每次等待的时间
+    private static final int DRAIN_BATCH = 256;
+    private final PointQueue submitQueue = new PointQueue(SUBMIT_QUEUE_CAPACITY);
+    private volatile int submitPolicy = SUBMIT_POLICY_DROP_OLDEST;
+    private final AtomicBoolean isDrainPosted = new AtomicBoolean(false);
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable drainRequest = new Runnable() {
+        @Override
+        public void run() {
+            postFrameTick();
+        }
+    };
+    private final float[] drainXY = new float[DRAIN_BATCH * 2];
+    private final int[] drainIds = new int[DRAIN_BATCH];
+    private final float[] updateXY = new float[DRAIN_BATCH * 2];
+    private final int[] updateIndices = new int[DRAIN_BATCH];
+    private final RectF visibleRect = new RectF();
+    private static final float REFERENCE_TEXT_MARGIN = 300;//参考系文字可能超出点的范围，查询时扩大的屏幕距离
     private boolean isDrawAddPoints = true;//是否绘制添加点
     private boolean isDrawCenterIcon = true;//是否绘制中心点图标
     private boolean isSupportRotateGesture = true;//是否支持旋转手势
     private boolean isSupportScaleGesture = true;//是否支持缩放手势
     private boolean isSupportDragGesture = true;//是否支持拖拽手势
     private boolean isCenterBitmapVisible = true;
+    private final List<MapOverlay> overlays = new CopyOnWriteArrayList<>();//地图图层，按添加顺序绘制
 
 
     public GestureSurfaceView(Context context) {
@@ -144,6 +243,9 @@ public class GestureSurfaceView extends BaseSurfaceView {
     }
 
     private void initGestureSurfaceView() {
+        ViewConfiguration configuration = ViewConfiguration.get(getContext());
+        minFlingVelocity = configuration.getScaledMinimumFlingVelocity();
+        maxFlingVelocity = configuration.getScaledMaximumFlingVelocity();
         //设置画笔
         paint.setColor(paintColor);
         paint.setStrokeWidth(2);
@@ -187,6 +289,7 @@ public class GestureSurfaceView extends BaseSurfaceView {
      */
     public void isDrawAddPoints(boolean bool) {
         isDrawAddPoints = bool;
+        invalidateFrame();
     }
 
     /**
@@ -196,26 +299,63 @@ public class GestureSurfaceView extends BaseSurfaceView {
      */
     public void isDrawCenterIcon(boolean bool) {
         isDrawCenterIcon = bool;
+        invalidateFrame();
     }
 
     /**
-     * 获得添加点的列表
+     * 获得添加点的列表，为兼容旧接口保留
+     * 此列表是对内部点集合的视图，支持增删改，get返回的是点的副本，修改副本不会影响已添加的点，请使用set修改
+     * 只能在UI线程中使用，绘制线程(如drawOther)中请使用{@link #getPoints()}，大量点时也建议使用getPoints
      *
      * @return
+     * @deprecated 点不再以PointF保存，get(i).x = ...这样的修改不会生效，读取请使用{@link #getPoints()}，
+     * 修改请使用{@link #setPoint(int, float, float)}
      */
+    @Deprecated
     public List<PointF> getPointsList() {
-        return points;
+        return pointsList;
     }
 
     /**
-     * 获得最后添加的一个点
+     * 获得添加点的只读快照，可在任意线程调用
+     * 在绘制线程中为当前帧使用的快照，与getCameraVersion等一样整帧不变；其他线程为最新发布的快照
+     * 快照不会因之后的添加、移除等修改而变化，需要最新的点时请重新获取
+     *
+     * @return
+     */
+    public ReadOnlyPoints getPoints() {
+        return Thread.currentThread() == drawingThread ? framePoints : points.snapshot();
+    }
+
+    /**
+     * 通知添加点已被外部修改，会重建点的空间索引并重绘
+     */
+    public void notifyPointsChanged() {
+        points.notifyChanged();
+        invalidateFrame();
+    }
+
+    /**
+     * 修改添加点的坐标
+     *
+     * @param index 点的序号
+     * @param x     点坐标，与getCurrentPoint返回的点坐标一致
+     * @param y
+     */
+    public void setPoint(int index, float x, float y) {
+        points.set(index, x, y);
+        invalidateFrame();
+    }
+
+    /**
+     * 获得最后添加的一个点的副本，修改它不会影响已添加的点
      *
      * @return
      */
     public PointF getLastPoint() {
         int size = points.size();
         if (size > 0) {
-            return points.get(size - 1);
+            return new PointF(points.getX(size - 1), points.getY(size - 1));
         }
         return null;
     }
@@ -226,6 +366,7 @@ public class GestureSurfaceView extends BaseSurfaceView {
      */
     public void setCenterBitmapVisibility(boolean bool){
         isCenterBitmapVisible=bool;
+        invalidateFrame();
     }
 
 
@@ -234,6 +375,7 @@ public class GestureSurfaceView extends BaseSurfaceView {
      */
     public void setCenterColor(@ColorInt int color) {
         this.centerColor = color;
+        invalidateFrame();
     }
 
     /**
@@ -243,6 +385,7 @@ public class GestureSurfaceView extends BaseSurfaceView {
      */
     public void setCenterSize(int radius) {
         this.centerSize = radius;
+        invalidateFrame();
     }
 
     /**
@@ -255,6 +398,7 @@ public class GestureSurfaceView extends BaseSurfaceView {
         Log.i(TAG, "setCenterBitmap:mapWidth=" + bitmap);
         this.centerBitmap = bitmap;
         this.centerBitmapPosition = centerBitmapPosition;
+        invalidateFrame();
     }
 
     /**
@@ -265,6 +409,7 @@ public class GestureSurfaceView extends BaseSurfaceView {
     public void setCenterBitmap(Bitmap bitmap) {
         Log.i(TAG, "setCenterBitmap:mapWidth=" + bitmap);
         this.centerBitmap = bitmap;
+        invalidateFrame();
     }
 
     /**
@@ -276,6 +421,32 @@ public class GestureSurfaceView extends BaseSurfaceView {
         onGestureListener = listener;
     }
 
+    /**
+     * 添加地图图层，图层在地图和添加点之上、drawOther之下绘制
+     *
+     * @param overlay
+     */
+    public void addOverlay(MapOverlay overlay) {
+        if (overlay == null || overlays.contains(overlay)) {
+            return;
+        }
+        overlay.view = this;
+        overlays.add(overlay);
+        invalidateFrame();
+    }
+
+    /**
+     * 移除地图图层
+     *
+     * @param overlay
+     */
+    public void removeOverlay(MapOverlay overlay) {
+        if (overlays.remove(overlay)) {
+            overlay.view = null;
+            invalidateFrame();
+        }
+    }
+
 
     //***********************地图接口**************************start
 
@@ -308,9 +479,94 @@ public class GestureSurfaceView extends BaseSurfaceView {
         if (bitmap == null) {
             return;
         }
+        releaseTiledMap();
         this.mapBitmap = bitmap;
-        srcMapWidth = mapWidth = mapBitmap.getWidth();
-        srcMapHeight = mapHeight = mapBitmap.getHeight();
+        rebuildMapPyramid();
+        setMapSize(mapBitmap.getWidth(), mapBitmap.getHeight());
+    }
+
+    /**
+     * 设置是否为地图生成多级缩小图，默认生成
+     * 地图缩小显示时会使用对应级别的缩小图绘制，画面更平滑，但会额外占用不超过原图1/3的内存，低内存设备可关闭
+     *
+     * @param enabled
+     */
+    public void setMapMipmapEnabled(boolean enabled) {
+        if (isMapMipmapEnabled == enabled) {
+            return;
+        }
+        isMapMipmapEnabled = enabled;
+        rebuildMapPyramid();
+        invalidateFrame();
+    }
+
+    /**
+     * 获得地图多级缩小图占用的内存(不包括原图)
+     *
+     * @return 字节数
+     */
+    public long getMapMipmapByteCount() {
+        MapPyramid pyramid = mapPyramid;
+        return pyramid != null ? pyramid.getByteCount() : 0;
+    }
+
+    private void rebuildMapPyramid() {
+        if (mapPyramid != null) {
+            mapPyramid.cancel();
+            mapPyramid = null;
+        }
+        if (isMapMipmapEnabled && mapBitmap != null) {
+            mapPyramid = new MapPyramid(mapBitmap, minMapScale, new Runnable() {
+                @Override
+                public void run() {
+                    invalidateFrame();
+                }
+            });
+        }
+    }
+
+    /**
+     * 设置瓦片地图，用于无法整张解码的超大地图
+     * 只会解码视口内可见的瓦片，瓦片在后台线程解码，解码完成前显示占位
+     * 地图的拖动、缩放、旋转等接口与setMapBitmap时完全一致
+     *
+     * @param provider 瓦片提供者，如{@link RegionDecoderTileProvider}，被替换时会调用其release
+     */
+    public void setMapTileProvider(MapTileProvider provider) {
+        if (provider == null) {
+            return;
+        }
+        releaseTiledMap();
+        this.mapBitmap = null;
+        rebuildMapPyramid();
+        tiledMapLayer = new TiledMapLayer(provider, tileCacheBytes, new Runnable() {
+            @Override
+            public void run() {
+                invalidateFrame();
+            }
+        });
+        setMapSize(tiledMapLayer.getMapWidth(), tiledMapLayer.getMapHeight());
+    }
+
+    /**
+     * 设置瓦片缓存的大小，需在setMapTileProvider之前调用，默认为最大内存的1/8
+     *
+     * @param bytes
+     */
+    public void setTileCacheSize(int bytes) {
+        tileCacheBytes = bytes;
+    }
+
+    private void releaseTiledMap() {
+        if (tiledMapLayer != null) {
+            tiledMapLayer.release();
+            tiledMapLayer = null;
+        }
+    }
+
+    private void setMapSize(int width, int height) {
+        srcMapWidth = mapWidth = width;
+        srcMapHeight = mapHeight = height;
         Log.i(TAG, "setMapBitmap:mapWidth=" + mapWidth + ",mapHeight=" + mapHeight);
         mapRectf.left = 0;
         mapRectf.top = 0;
@@ -318,6 +574,16 @@ public class GestureSurfaceView extends BaseSurfaceView {
         mapRectf.bottom = mapHeight;
 
         initMapBitmap();
+        onCameraChanged();
+    }
+
+    /**
+     * 是否已设置了地图(位图或瓦片)
+     *
+     * @return
+     */
+    public boolean hasMap() {
+        return mapBitmap != null || tiledMapLayer != null;
     }
 
     /**
@@ -327,6 +593,7 @@ public class GestureSurfaceView extends BaseSurfaceView {
      */
     public void setMapCoordinate(@CoordinateMap int coordinate) {
         mapCoordinate = coordinate;
+        invalidateFrame();
     }
 
     /**
@@ -358,6 +625,174 @@ public class GestureSurfaceView extends BaseSurfaceView {
         mapRectf.top = mapLeftY;
         mapRectf.right = mapLeftX + mapWidth;
         mapRectf.bottom = mapLeftY + mapHeight;
+        onCameraChanged();
+    }
+
+    /**
+     * 以(px,py)为中心缩放和旋转地图后再平移，组合成一个矩阵一次作用到地图矩阵上
+     *
+     * @param dx
+     * @param dy
+     * @param scale  缩放比例，超出范围时会被限制
+     * @param angle  旋转角度，正则顺时针旋转
+     * @param px     缩放和旋转中心的x坐标(屏幕坐标)
+     * @param py
+     */
+    private void transformMap(float dx, float dy, float scale, float angle, float px, float py) {
+        float s = Math.max(minMapScale, Math.min(maxMapScale, mapScale * scale));
+        scale = s / mapScale;
+        //组合变换：先以(px,py)为中心缩放旋转，再平移
+        gestureMatrix.setScale(scale, scale, px, py);
+        gestureMatrix.postRotate(angle, px, py);
+        gestureMatrix.postTranslate(dx, dy);
+        matrix.postConcat(gestureMatrix);
+
+        tempCoords[0] = mapCenterX;
+        tempCoords[1] = mapCenterY;
+        gestureMatrix.mapPoints(tempCoords);
+        mapCenterX = tempCoords[0];
+        mapCenterY = tempCoords[1];
+        mapScale = s;
+        mapRotate += angle;
+        mapWidth = (int) (srcMapWidth * mapScale);
+        mapHeight = (int) (srcMapHeight * mapScale);
+        mapLeftX = mapCenterX - mapWidth / 2.0f;
+        mapLeftY = mapCenterY - mapHeight / 2.0f;
+        mapRectf.left = mapLeftX;
+        mapRectf.top = mapLeftY;
+        mapRectf.right = mapLeftX + mapWidth;
+        mapRectf.bottom = mapLeftY + mapHeight;
+        mapRectf.setRotate(mapRotate);
+        onCameraChanged();
+    }
+
+    /**
+     * 直接设置地图状态，重建地图矩阵
+     *
+     * @param centerX 地图中心点的屏幕坐标
+     * @param centerY
+     * @param scale   缩放比例
+     * @param angle   旋转角度
+     */
+    private void setCamera(float centerX, float centerY, float scale, float angle) {
+        matrix.setTranslate(-srcMapWidth / 2.0f, -srcMapHeight / 2.0f);
+        matrix.postScale(scale, scale);
+        matrix.postRotate(angle);
+        matrix.postTranslate(centerX, centerY);
+        mapCenterX = centerX;
+        mapCenterY = centerY;
+        mapScale = scale;
+        mapRotate = angle;
+        mapWidth = (int) (srcMapWidth * mapScale);
+        mapHeight = (int) (srcMapHeight * mapScale);
+        mapLeftX = mapCenterX - mapWidth / 2.0f;
+        mapLeftY = mapCenterY - mapHeight / 2.0f;
+        mapRectf.left = mapLeftX;
+        mapRectf.top = mapLeftY;
+        mapRectf.right = mapLeftX + mapWidth;
+        mapRectf.bottom = mapLeftY + mapHeight;
+        mapRectf.setRotate(mapRotate);
+        onCameraChanged();
+    }
+
+    /**
+     * 以动画的方式将地图上的点移到屏幕中心，同时缩放和旋转到指定值，只能在UI线程调用
+     * 缩放比例按对数插值，旋转角度沿较短的方向插值，触摸地图会取消动画
+     *
+     * @param mapX         点坐标，与getCurrentPoint返回的点坐标一致
+     * @param mapY
+     * @param scale        目标缩放比例，超出范围时会被限制
+     * @param rotate       目标旋转角度，正为顺时针
+     * @param durationMs   动画时长(毫秒)，小于等于0则直接跳到目标状态
+     * @param interpolator 插值器，为null时使用先加速后减速
+     */
+    public void animateTo(float mapX, float mapY, float scale, float rotate, long durationMs, TimeInterpolator interpolator) {
+        if (!isMapInit) {
+            return;
+        }
+        stopFling();
+        float[] p = tempCoords;
+        p[0] = screenCenterX;
+        p[1] = screenCenterY;
+        screenToMap(p, p, 1);
+        animFromX = p[0];
+        animFromY = p[1];
+        animToX = mapX;
+        animToY = mapY;
+        animFromLogScale = (float) Math.log(mapScale);
+        animToLogScale = (float) Math.log(Math.max(minMapScale, Math.min(maxMapScale, scale)));
+        animFromRotate = mapRotate;
+        //取[-180,180)内的角度差
+        animRotateDelta = ((rotate - mapRotate) % 360 + 540) % 360 - 180;
+        animInterpolator = interpolator != null ? interpolator : DEFAULT_INTERPOLATOR;
+        animDurationNanos = Math.max(0, durationMs) * 1000000L;
+        animStartTimeNanos = 0;
+        isAnimating = true;
+        if (animDurationNanos == 0) {
+            applyAnimation(1.0f);
+            isAnimating = false;
+        } else {
+            postFrameTick();
+        }
+    }
+
+    /**
+     * 以动画的方式将地图上的点移到屏幕中心，保持当前的缩放比例和旋转角度
+     *
+     * @param mapX
+     * @param mapY
+     * @param durationMs
+     */
+    public void animateTo(float mapX, float mapY, long durationMs) {
+        animateTo(mapX, mapY, mapScale, mapRotate, durationMs, null);
+    }
+
+    /**
+     * 是否正在执行相机动画
+     *
+     * @return
+     */
+    public boolean isAnimating() {
+        return isAnimating;
+    }
+
+    /**
+     * 取消相机动画，地图停在当前状态
+     */
+    public void cancelAnimation() {
+        isAnimating = false;
+    }
+
+    private void stepAnimation(long frameTimeNanos) {
+        if (!isAnimating) {
+            return;
+        }
+        if (animStartTimeNanos == 0) {
+            animStartTimeNanos = frameTimeNanos;
+        }
+        float fraction = Math.min(1.0f, (frameTimeNanos - animStartTimeNanos) * 1.0f / animDurationNanos);
+        applyAnimation(animInterpolator.getInterpolation(fraction));
+        if (fraction >= 1.0f) {
+            isAnimating = false;
+        } else {
+            postFrameTick();
+        }
+    }
+
+    /**
+     * 按进度更新相机，使插值得到的点位于屏幕中心
+     */
+    private void applyAnimation(float t) {
+        float x = animFromX + (animToX - animFromX) * t;
+        float y = animFromY + (animToY - animFromY) * t;
+        float scale = (float) Math.exp(animFromLogScale + (animToLogScale - animFromLogScale) * t);
+        float angle = animFromRotate + animRotateDelta * t;
+        //点在屏幕上的位置=地图中心+旋转缩放后的点坐标，反推地图中心
+        float cos = CalculateUtil.cos(angle);
+        float sin = CalculateUtil.sin(angle);
+        float sx = x * scale;
+        float sy = y * scale;
+        setCamera(screenCenterX - (sx * cos - sy * sin), screenCenterY - (sx * sin + sy * cos), scale, angle);
     }
 
     /**
@@ -400,6 +835,7 @@ public class GestureSurfaceView extends BaseSurfaceView {
         if (isFirstMapBestFit) {
             setMapBestFit();
         }
+        onCameraChanged();
     }
 
 
@@ -410,6 +846,7 @@ public class GestureSurfaceView extends BaseSurfaceView {
      */
     public void showReference(boolean isShow) {
         isShowReference = isShow;
+        invalidateFrame();
     }
 
     /**
@@ -433,6 +870,7 @@ public class GestureSurfaceView extends BaseSurfaceView {
         mapRectf.top = mapLeftY;
         mapRectf.right = mapLeftX + mapWidth;
         mapRectf.bottom = mapLeftY + mapHeight;
+        onCameraChanged();
     }
 
     /**
@@ -459,7 +897,11 @@ public class GestureSurfaceView extends BaseSurfaceView {
      * @param min
      */
     public void setMinZoomScale(float min) {
+        boolean needMoreLevels = min < minMapScale;
         minMapScale = min;
+        if (needMoreLevels) {
+            rebuildMapPyramid();
+        }
     }
 
     /**
@@ -480,6 +922,20 @@ public class GestureSurfaceView extends BaseSurfaceView {
         scaleSsensitivity = sensitivity;
     }
 
+    /**
+     * 设置两指手势的处理方式，默认同时拖动、缩放和旋转
+     * 缩放灵敏度只对{@link #GESTURE_MODE_STEPPED}有效
+     *
+     * @param mode
+     */
+    public void setGestureMode(@GestureMode int mode) {
+        gestureMode = mode;
+    }
+
+    public int getGestureMode() {
+        return gestureMode;
+    }
+
 
     /**
      * 旋转地图
@@ -490,6 +946,7 @@ public class GestureSurfaceView extends BaseSurfaceView {
         matrix.postRotate(angle, mapCenterX, mapCenterY);
         this.mapRotate += angle;
         mapRectf.setRotate(this.mapRotate);
+        onCameraChanged();
     }
 
 
@@ -505,22 +962,36 @@ public class GestureSurfaceView extends BaseSurfaceView {
      * @param isRelative 是否是相对原图坐标，是的话则将点转为原图坐标，否则转为绝对坐标
      */
     public PointF convertToNeedPoint(PointF point, boolean isRelative) {
-        PointF calP = new PointF();
+        return convertToNeedPoint(point, isRelative, new PointF());
+    }
+
+    /**
+     * 转换添加点的坐标，结果写入out，不分配新对象
+     *
+     * @param point
+     * @param isRelative 是否是相对原图坐标，是的话则将点转为原图坐标，否则转为绝对坐标
+     * @param out        保存结果，可以与point是同一个对象
+     * @return out
+     */
+    public PointF convertToNeedPoint(PointF point, boolean isRelative, PointF out) {
+        CameraState c = camera();
+        float scale = c.scale;
         if (isRelative) {
-            PointF oCenter = new PointF(mapWidth / 2.0f, mapHeight / 2.0f);//相对中心点
+            float ocx = c.mapWidth / 2.0f;//相对中心点
+            float ocy = c.mapHeight / 2.0f;
+            float x = (ocx + point.x * scale) / scale;
+            float y;
             if (mapCoordinate == COORDINATE_MAP_LEFT_DOWN) {
-                calP.x = (oCenter.x + point.x * mapScale) / mapScale;
-                calP.y = (oCenter.y - point.y * mapScale) / mapScale;
+                y = (ocy - point.y * scale) / scale;
             } else {
-                calP.x = (oCenter.x + point.x * mapScale) / mapScale;
-                calP.y = (oCenter.y + point.y * mapScale) / mapScale;
+                y = (ocy + point.y * scale) / scale;
             }
+            out.set(x, y);
         } else {
-            PointF ap = getPointAfterRotate(new PointF(mapCenterX + point.x * mapScale, mapCenterY + point.y * mapScale), new PointF(mapCenterX, mapCenterY), mapRotate);
-            calP.x = ap.x;
-            calP.y = ap.y;
+            CameraTransform t = c.transform;
+            out.set(t.toScreenX(point.x, point.y), t.toScreenY(point.x, point.y));
         }
-        return calP;
+        return out;
     }
 
     /**
@@ -545,9 +1016,12 @@ public class GestureSurfaceView extends BaseSurfaceView {
     public PointF getCurrentPoint() {
         if (judgePointInside(screenCenterX, screenCenterY)) {
             Log.i(TAG, "addPoint:点在矩形内");
-            PointF p = CalculateUtil.getPointAfterRotate(new PointF(screenCenterX, screenCenterY), new PointF(mapCenterX, mapCenterY), -mapRotate);
-            float dw = (p.x - mapCenterX) / mapScale;
-            float dh = (p.y - mapCenterY) / mapScale;
+            float[] p = tempCoords;
+            p[0] = screenCenterX;
+            p[1] = screenCenterY;
+            screenToMap(p, p, 1);
+            float dw = p[0];
+            float dh = p[1];
 
             Log.i(TAG, "dw=" + dw + ",dh=" + dh);
             return new PointF(dw, dh);
@@ -587,18 +1061,161 @@ public class GestureSurfaceView extends BaseSurfaceView {
     public boolean addPoint() {
         PointF point = getCurrentPoint();
         if (point != null) {
-            points.add(point);
+            points.add(point.x, point.y);
+            invalidateFrame();
             return true;
         }
         return false;
     }
 
+    /**
+     * 批量添加点，坐标与getCurrentPoint返回的点坐标一致
+     *
+     * @param xy    x,y交替保存的坐标
+     * @param count 点的个数
+     */
+    public void addPoints(float[] xy, int count) {
+        points.addAll(xy, 0, count);
+        invalidateFrame();
+    }
+
+    /**
+     * 设置提交队列满时的处理方式，默认SUBMIT_POLICY_DROP_OLDEST
+     *
+     * @param policy
+     */
+    public void setSubmitPolicy(@SubmitPolicy int policy) {
+        submitPolicy = policy;
+    }
+
+    @SubmitPolicy
+    public int getSubmitPolicy() {
+        return submitPolicy;
+    }
+
+    /**
+     * 提交点，可在任意线程调用，适合后台线程推送的实时位置
+     * 点先放入无锁队列，UI线程在下一帧开始时批量写入，不会阻塞UI线程和绘制线程
+     *
+     * @param mapXY x,y交替保存的坐标，与getCurrentPoint返回的点坐标一致
+     * @param count 点的个数
+     * @return 放入队列的点数，只有SUBMIT_POLICY_BLOCK下等待时被中断才会少于count
+     */
+    public int submitPoints(float[] mapXY, int count) {
+        return submitPoints(null, mapXY, count);
+    }
+
+    /**
+     * 提交带id的点，可在任意线程调用，配合SUBMIT_POLICY_COALESCE_BY_ID可按id更新点的位置
+     *
+     * @param ids   每个点的id，为null时都没有id
+     * @param mapXY x,y交替保存的坐标，与getCurrentPoint返回的点坐标一致
+     * @param count 点的个数
+     * @return 放入队列的点数
+     */
+    public int submitPoints(int[] ids, float[] mapXY, int count) {
+        int policy = submitPolicy;
+        boolean canBlock = policy == SUBMIT_POLICY_BLOCK && Looper.myLooper() != Looper.getMainLooper();
+        int accepted = 0;
+        for (int i = 0; i < count; i++) {
+            int id = ids != null ? ids[i] : PointStore.NO_ID;
+            while (!submitQueue.offer(id, mapXY[i * 2], mapXY[i * 2 + 1])) {
+                if (canBlock) {
+                    requestDrain();
+                    LockSupport.parkNanos(SUBMIT_BLOCK_PARK_NANOS);
+                    if (Thread.currentThread().isInterrupted()) {
+                        requestDrain();
+                        return accepted;
+                    }
+                } else {
+                    submitQueue.dropOldest();
+                }
+            }
+            accepted++;
+        }
+        requestDrain();
+        return accepted;
+    }
+
+    private void requestDrain() {
+        if (isDrainPosted.compareAndSet(false, true)) {
+            mainHandler.post(drainRequest);
+        }
+    }
+
+    /**
+     * 在UI线程中取出提交的点写入points，每帧最多取出一个队列容量的点，剩余的下一帧继续
+     */
+    private void drainSubmittedPoints() {
+        isDrainPosted.set(false);
+        int budget = submitQueue.capacity();
+        int n;
+        boolean isChanged = false;
+        while (budget > 0 && (n = submitQueue.drain(drainXY, drainIds, Math.min(budget, DRAIN_BATCH))) > 0) {
+            budget -= n;
+            isChanged = true;
+            if (submitPolicy == SUBMIT_POLICY_COALESCE_BY_ID) {
+                applyCoalesced(n);
+            } else if (hasIds(drainIds, n)) {
+                points.addAll(drainXY, 0, drainIds, 0, n);
+            } else {
+                points.addAll(drainXY, 0, n);
+            }
+        }
+        if (budget == 0 && submitQueue.size() > 0) {
+            requestDrain();
+        }
+        if (isChanged) {
+            invalidateFrame();
+        }
+    }
+
+    /**
+     * 已有相同id的点只更新坐标，批量修改只发布一次快照，其余的点添加到末尾
+     */
+    private void applyCoalesced(int n) {
+        int updates = 0;
+        for (int i = 0; i < n; i++) {
+            int id = drainIds[i];
+            int index = points.indexOfId(id);
+            if (index < 0) {
+                points.add(drainXY[i * 2], drainXY[i * 2 + 1], id);
+            } else {
+                updateIndices[updates] = index;
+                updateXY[updates * 2] = drainXY[i * 2];
+                updateXY[updates * 2 + 1] = drainXY[i * 2 + 1];
+                updates++;
+            }
+        }
+        points.setAll(updateIndices, updateXY, updates);
+    }
+
+    private static boolean hasIds(int[] ids, int n) {
+        for (int i = 0; i < n; i++) {
+            if (ids[i] != PointStore.NO_ID) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 批量移除[from, to)范围内的点
+     *
+     * @param from
+     * @param to
+     */
+    public void removePoints(int from, int to) {
+        points.removeRange(from, to);
+        invalidateFrame();
+    }
+
     /**
      * 撤销添加的点
      */
     public void backAddPoint() {
-        if (points.size() > 0) {
-            points.remove(points.size() - 1);
+        if (points.removeLast()) {
+            invalidateFrame();
         }
     }
 
@@ -607,8 +1224,290 @@ public class GestureSurfaceView extends BaseSurfaceView {
      */
     public void cleanAllAddPoints() {
         points.clear();
+        invalidateFrame();
+    }
+
+
+    /**
+     * 在绘制线程中根据点快照同步空间索引，追加或移除末尾的点时增量添加或移除，修改坐标时只移动网格变化的点，
+     * 序号变化(插入、移除中间的点、清空)时按地图区域重建
+     */
+    private void syncPointIndex(CameraState camera, PointStore.Snapshot snap) {
+        if (snap.getStructureVersion() != indexedStructureVersion
+                || camera.srcMapWidth != indexedMapWidth || camera.srcMapHeight != indexedMapHeight) {
+            pointIndex.reset(-camera.srcMapWidth / 2.0f, -camera.srcMapHeight / 2.0f, camera.srcMapWidth, camera.srcMapHeight);
+            indexedStructureVersion = snap.getStructureVersion();
+            indexedMoveVersion = snap.getMoveVersion();
+            indexedMapWidth = camera.srcMapWidth;
+            indexedMapHeight = camera.srcMapHeight;
+            indexedSize = 0;
+        } else {
+            //撤销添加的点，与原来的列表一样只需O(1)
+            for (; indexedSize > snap.size(); indexedSize--) {
+                pointIndex.removeLast();
+            }
+            if (snap.getMoveVersion() != indexedMoveVersion) {
+                indexedMoveVersion = snap.getMoveVersion();
+                pointIndex.update(snap);
+            }
+        }
+        for (int i = indexedSize, n = snap.size(); i < n; i++) {
+            pointIndex.add(i, snap.getX(i), snap.getY(i));
+        }
+        indexedSize = snap.size();
+    }
+
+    /**
+     * 查询当前帧屏幕内可见的添加点，只能在绘制线程中调用
+     *
+     * @param margin 屏幕四周扩大的距离(px)
+     * @param out    可见点的序号，按升序排列
+     */
+    private void queryVisiblePoints(float margin, IntList out) {
+        if (!frameCamera.isInvertible) {
+            out.clear();
+            return;
+        }
+        //屏幕矩形经逆矩阵变换到点坐标
+        visibleRect.set(-margin, -margin, screenWidth + margin, screenHeight + margin);
+        frameCamera.inversePointMatrix.mapRect(visibleRect);
+        pointIndex.query(visibleRect.left, visibleRect.top, visibleRect.right, visibleRect.bottom, out);
+        //索引按网格返回，排序后与添加顺序一致，重叠的点后添加的仍画在上面
+        out.sort();
+    }
+
+    /**
+     * 兼容旧接口的List视图，增删改都会同步到内部点集合
+     */
+    private class PointListAdapter extends AbstractList<PointF> {
+
+        @Override
+        public PointF get(int index) {
+            return new PointF(points.getX(index), points.getY(index));
+        }
+
+        @Override
+        public int size() {
+            return points.size();
+        }
+
+        @Override
+        public PointF set(int index, PointF element) {
+            PointF old = get(index);
+            points.set(index, element.x, element.y);
+            invalidateFrame();
+            return old;
+        }
+
+        @Override
+        public void add(int index, PointF element) {
+            if (index == points.size()) {
+                points.add(element.x, element.y);
+            } else {
+                points.insert(index, element.x, element.y);
+            }
+            invalidateFrame();
+        }
+
+        @Override
+        public PointF remove(int index) {
+            PointF old = get(index);
+            if (index == points.size() - 1) {
+                points.removeLast();
+            } else {
+                points.remove(index);
+            }
+            invalidateFrame();
+            return old;
+        }
+
+        @Override
+        public void clear() {
+            cleanAllAddPoints();
+        }
+    }
+
+    /**
+     * 地图矩阵变化后调用，更新点坐标与屏幕坐标之间的矩阵及其逆矩阵并重绘
+     * 点坐标以地图中心为原点，所以在地图矩阵基础上先平移到地图中心
+     */
+    private void onCameraChanged() {
+        CameraState c = liveCamera;
+        c.matrix.set(matrix);
+        c.pointMatrix.set(matrix);
+        c.pointMatrix.preTranslate(srcMapWidth / 2.0f, srcMapHeight / 2.0f);
+        c.isInvertible = c.pointMatrix.invert(c.inversePointMatrix);
+        c.centerX = mapCenterX;
+        c.centerY = mapCenterY;
+        c.scale = mapScale;
+        if (c.rotate != mapRotate) {
+            c.rotate = mapRotate;
+            c.cos = CalculateUtil.cos(mapRotate);
+            c.sin = CalculateUtil.sin(mapRotate);
+        }
+        c.transform.set(mapCenterX, mapCenterY, mapScale, c.cos, c.sin);
+        c.mapWidth = mapWidth;
+        c.mapHeight = mapHeight;
+        c.srcMapWidth = srcMapWidth;
+        c.srcMapHeight = srcMapHeight;
+        c.rect.set(mapRectf);
+        c.rect.setRotate(mapRectf.getRotate());
+        c.version++;
+        //发布给绘制线程
+        cameraBuffer.getBack().set(c);
+        cameraBuffer.publish();
+        invalidateFrame();
+    }
+
+    /**
+     * 获得相机版本，平移、缩放、旋转或重新初始化地图后都会变化，可用于子类自己的缓存
+     * 在绘制线程中为当前帧的版本
+     *
+     * @return
+     */
+    public long getCameraVersion() {
+        return camera().version;
+    }
+
+    /**
+     * 获得调用线程应使用的相机状态，绘制线程中为当前帧的快照，其他线程为最新状态
+     *
+     * @return
+     */
+    private CameraState camera() {
+        return Thread.currentThread() == drawingThread ? frameCamera : liveCamera;
+    }
+
+    /**
+     * 批量将屏幕坐标转换为点坐标(与getCurrentPoint返回的点坐标一致)，每个点只需一次矩阵乘法
+     *
+     * @param in  屏幕坐标，x,y交替
+     * @param out 点坐标，可以与in是同一个数组
+     * @param n   点的个数
+     */
+    public void screenToMap(float[] in, float[] out, int n) {
+        camera().transform.screenToMap(in, 0, out, 0, n);
+    }
+
+    /**
+     * 批量将点坐标(与getCurrentPoint返回的点坐标一致)转换为屏幕坐标，每个点只需一次矩阵乘法
+     *
+     * @param in  点坐标，x,y交替
+     * @param out 屏幕坐标，可以与in是同一个数组
+     * @param n   点的个数
+     */
+    public void mapToScreen(float[] in, float[] out, int n) {
+        camera().transform.mapToScreen(in, 0, out, 0, n);
+    }
+
+    /**
+     * 设置并行投影的最少点数，点数达到此值时投影和裁剪按块在多个线程中进行，默认20000
+     *
+     * @param count Integer.MAX_VALUE表示总是在绘制线程中顺序处理
+     */
+    public void setParallelPrepareThreshold(int count) {
+        addPointsCache.setParallelThreshold(count);
+        otherProjector.setParallelThreshold(count);
+    }
+
+    public int getParallelPrepareThreshold() {
+        return addPointsCache.getParallelThreshold();
+    }
+
+    /**
+     * 注册投影缓存，每帧在lockCanvas之前，相机或点集合变化时重新投影，之后可在drawOther中直接使用其结果
+     * 修改了缓存的点集合后需要调用invalidateFrame请求重绘
+     *
+     * @param cache
+     */
+    public void addProjectionCache(ProjectionCache cache) {
+        if (!projectionCaches.contains(cache)) {
+            projectionCaches.add(cache);
+            invalidateFrame();
+        }
     }
 
+    public void removeProjectionCache(ProjectionCache cache) {
+        projectionCaches.remove(cache);
+    }
+
+    private float[] ensureScreenPoints(int count) {
+        if (screenPoints.length < count * 2) {
+            screenPoints = new float[Math.max(count * 2, screenPoints.length * 2)];
+        }
+        return screenPoints;
+    }
+
+    /**
+     * 将当前可见的添加点批量转换为屏幕坐标，结果保存在screenPoints中
+     *
+     * @param margin 屏幕四周扩大的距离(px)
+     * @return 点的个数
+     */
+    private int projectVisiblePoints(float margin) {
+        queryVisiblePoints(margin, visiblePoints);
+        int n = visiblePoints.size();
+        float[] buffer = ensureScreenPoints(n);
+        PointStore.Snapshot snap = framePoints;
+        for (int i = 0; i < n; i++) {
+            int index = visiblePoints.get(i);
+            buffer[i * 2] = snap.getX(index);
+            buffer[i * 2 + 1] = snap.getY(index);
+        }
+        frameCamera.pointMatrix.mapPoints(buffer, 0, buffer, 0, n);
+        return n;
+    }
+
+    /**
+     * 将点集合批量转换为屏幕坐标，与绘制地图使用同一个矩阵，只需一次矩阵变换
+     * 适合在drawOther中处理大量点，避免逐个调用convertToNeedPoint
+     *
+     * @param src 点坐标，与getCurrentPoint返回的点坐标一致
+     * @param dst 屏幕坐标，x,y交替，长度至少为src.size()*2
+     * @return 点的个数
+     */
+    public int projectPoints(ReadOnlyPoints src, float[] dst) {
+        int n = src.size();
+        src.copyTo(0, n, dst, 0);
+        camera().pointMatrix.mapPoints(dst, 0, dst, 0, n);
+        return n;
+    }
+
+    /**
+     * 批量绘制点集合，屏幕外的点会被裁剪，其余点通过一次drawPoints绘制成圆点
+     * 点较多时投影和裁剪并行进行，只能在绘制线程中调用，如drawOther中
+     *
+     * @param c
+     * @param src    点坐标，与getCurrentPoint返回的点坐标一致
+     * @param radius 圆点半径
+     * @param paint  使用其颜色等属性，不会被修改
+     */
+    public void drawMapPoints(Canvas c, ReadOnlyPoints src, float radius, Paint paint) {
+        if (src.size() == 0) {
+            return;
+        }
+        int n = otherProjector.project(src, null, camera().transform, -radius, -radius, screenWidth + radius, screenHeight + radius);
+        if (n > 0) {
+            drawScreenPoints(c, otherProjector.getScreenPoints(), n, radius, paint);
+        }
+    }
+
+    /**
+     * 通过一次drawPoints绘制多个已是屏幕坐标的圆点，可与projectPoints配合使用
+     *
+     * @param c
+     * @param xy     屏幕坐标，x,y交替
+     * @param count  点的个数
+     * @param radius 圆点半径
+     * @param paint  使用其颜色等属性，不会被修改
+     */
+    public void drawScreenPoints(Canvas c, float[] xy, int count, float radius, Paint paint) {
+        batchPaint.set(paint);
+        batchPaint.setStyle(Paint.Style.STROKE);
+        batchPaint.setStrokeCap(Paint.Cap.ROUND);
+        batchPaint.setStrokeWidth(radius * 2);
+        c.drawPoints(xy, 0, count * 2, batchPaint);
+    }
 
     //***********************添加点接口*************************end
 
@@ -621,13 +1520,53 @@ public class GestureSurfaceView extends BaseSurfaceView {
     float oldDist;
     float lastDist;//上一次的距离
 
+    //合并后待处理的手势输入，每帧只对地图做一次变换
+    private boolean hasPendingInput = false;
+    private float pendingDx, pendingDy;//累计的拖动距离
+    private float pendingScale = 1.0f;//累计的缩放比例
+    private float pendingRotate;//累计的旋转角度
+    private float pendingGestureScale = 1.0f;//回调给监听器的缩放比例(两指距离比)
+    //同时拖动缩放旋转模式下，上次已应用的两指位置和最新的两指位置
+    private boolean hasPendingPinch = false;
+    private float pinchX0, pinchY0, pinchX1, pinchY1;
+    private float pinchNewX0, pinchNewY0, pinchNewX1, pinchNewY1;
+
+    //惯性滑动
+    private static final float FLING_STOP_VELOCITY = 10;//速度低于此值(px/s)时停止
+    private VelocityTracker velocityTracker;
+    private int minFlingVelocity, maxFlingVelocity;
+    private boolean isFlingEnabled = true;//是否支持惯性滑动
+    private float flingFriction = 4.0f;//速度衰减系数，每秒衰减为e^-friction
+    private boolean isFlinging = false;
+    private float flingVx, flingVy;//当前速度(px/s)
+    private long lastFlingTimeNanos;//上一次积分的帧时间
+
+    //相机动画，起止状态为屏幕中心对应的点坐标、缩放比例和旋转角度
+    private static final TimeInterpolator DEFAULT_INTERPOLATOR = new AccelerateDecelerateInterpolator();
+    private boolean isAnimating = false;
+    private TimeInterpolator animInterpolator;
+    private long animDurationNanos;
+    private long animStartTimeNanos;//0表示还未开始计时
+    private float animFromX, animFromY, animToX, animToY;
+    private float animFromLogScale, animToLogScale;//缩放比例按对数插值，放大和缩小的速度感一致
+    private float animFromRotate, animRotateDelta;
+
     @Override
     public boolean onTouchEvent(MotionEvent event) {
         // Log.i(TAG, "onTouchEvent ");
+        if (velocityTracker == null) {
+            velocityTracker = VelocityTracker.obtain();
+        }
+        //包含了批量到达的历史采样点
+        velocityTracker.addMovement(event);
         switch (event.getAction() & MotionEvent.ACTION_MASK) {
 
             case MotionEvent.ACTION_DOWN:
                 Log.i(TAG, "onTouchEvent:ACTION_DOWN ");
+                stopFling();
+                cancelAnimation();
+                velocityTracker.clear();
+                velocityTracker.addMovement(event);
                 clcikPointf.x = event.getX();
                 clcikPointf.y = event.getY();
                 if (mapRectf.contains(clcikPointf.x, clcikPointf.y)) {
@@ -639,6 +1578,14 @@ public class GestureSurfaceView extends BaseSurfaceView {
 
             case MotionEvent.ACTION_UP:
                 Log.i(TAG, "onTouchEvent:ACTION_UP ");
+                if (mode == ONTOUCH_MODE_DRAG && canDrag && isSupportDragGesture && isFlingEnabled) {
+                    velocityTracker.computeCurrentVelocity(1000, maxFlingVelocity);
+                    float vx = velocityTracker.getXVelocity();
+                    float vy = velocityTracker.getYVelocity();
+                    if (Math.hypot(vx, vy) > minFlingVelocity) {
+                        startFling(vx, vy);
+                    }
+                }
                 canDrag = false;
                 pointerCount = 0;
                 mode = ONTOUCH_MODE_DRAG;
@@ -649,6 +1596,12 @@ public class GestureSurfaceView extends BaseSurfaceView {
                 pointerCount--;
                 if (pointerCount > 1) {
                     mode = ONTOUCH_MODE_SCALE_OR_ROTATE;
+                    //抬起的手指之后，剩余手指的序号会变化，重新记录两指位置
+                    flushPendingInput();
+                    int skip = event.getActionIndex();
+                    int first = skip == 0 ? 1 : 0;
+                    int second = skip <= 1 ? 2 : 1;
+                    startPinch(event.getX(first), event.getY(first), event.getX(second), event.getY(second));
                 } else {
                     mode = ONTOUCH_MODE_DRAG;
                 }
@@ -660,56 +1613,269 @@ public class GestureSurfaceView extends BaseSurfaceView {
                 mode = ONTOUCH_MODE_SCALE_OR_ROTATE;//多于一个手指则有可能是缩放或旋转
                 oldRotation = rotation(event);
                 lastDist = oldDist = spacing(event);
+                velocityTracker.clear();
+                flushPendingInput();
+                startPinch(event.getX(0), event.getY(0), event.getX(1), event.getY(1));
                 break;
 
             case MotionEvent.ACTION_MOVE:
-                //Log.i(TAG, "onTouchEvent:ACTION_MOVE ");
+                //只累计输入，在下一帧的onFrameTick中统一处理
                 if (mode == ONTOUCH_MODE_DRAG) {
                     if (canDrag) {
+                        //拖动距离是各历史采样点增量之和，等于最新采样点与上次位置之差
                         float dx = event.getX() - clcikPointf.x;
                         float dy = event.getY() - clcikPointf.y;
                         clcikPointf.x = event.getX();
                         clcikPointf.y = event.getY();
-                        if (isSupportDragGesture) {
-                            translateMap(dx, dy);
-                        }
-                        onGesture(GESTURE_DRAG, dx, dy, 1, 0);
-
+                        pendingDx += dx;
+                        pendingDy += dy;
+                        requestInputFlush();
                     }
+                } else if (gestureMode == GESTURE_MODE_SIMULTANEOUS) {
+                    canDrag = false;
+                    //两指之间是相似变换，只需记录最新位置，历史采样点不影响结果
+                    pinchNewX0 = event.getX(0);
+                    pinchNewY0 = event.getY(0);
+                    pinchNewX1 = event.getX(1);
+                    pinchNewY1 = event.getY(1);
+                    hasPendingPinch = true;
+                    requestInputFlush();
                 } else {
                     canDrag = false;
-                    float newDist = spacing(event);
-                    float dist = Math.abs(newDist - lastDist);
-                    lastDist = newDist;
-                    Log.i(TAG, "两手指变化的距离dist：" + dist);
-                    if (dist < 10) {//两手指变化的距离少于次数则认为是在旋转
-                        float newRotation = rotation(event);
-                        float rotate = newRotation - oldRotation;
-                        oldRotation = newRotation;
-                        Log.i(TAG, "旋转角度：" + rotate);
-                        if (isSupportRotateGesture) {
-                            rotate(rotate);
+                    //逐个处理批量到达的历史采样点，最后一个为当前采样点
+                    int historySize = event.getHistorySize();
+                    boolean isScaled = false;
+                    for (int h = 0; h <= historySize; h++) {
+                        int pos = h < historySize ? h : -1;
+                        float newDist = spacing(event, pos);
+                        float dist = Math.abs(newDist - lastDist);
+                        lastDist = newDist;
+                        float newRotation = rotation(event, pos);
+                        if (dist < 10) {//两手指变化的距离少于次数则认为是在旋转
+                            pendingRotate += newRotation - oldRotation;
+                        } else {//否则则是缩放
+                            pendingGestureScale = newDist / oldDist;
+                            isScaled = true;
                         }
-                        onGesture(GESTURE_ROTATE, 0, 0, 1, rotate);
-
-                    } else {//否则则是缩放
-                        float scale = newDist / oldDist;
-                        Log.i(TAG, "缩放比例：" + scale);
-                        if (isSupportScaleGesture) {
-                            if (scale < 1) {//缩小
-                                zoom(1.0f - scaleSsensitivity / 1000.0f);
-                            } else {//放大
-                                zoom(1.0f + scaleSsensitivity / 1000.0f);
-                            }
+                        oldRotation = newRotation;
+                    }
+                    if (isScaled) {//每个事件只缩放一级，缩放速度与采样率无关
+                        if (pendingGestureScale < 1) {//缩小
+                            pendingScale *= 1.0f - scaleSsensitivity / 1000.0f;
+                        } else {//放大
+                            pendingScale *= 1.0f + scaleSsensitivity / 1000.0f;
                         }
-                        onGesture(GESTURE_SCALE, 0, 0, scale, 0);
                     }
+                    requestInputFlush();
                 }
                 break;
         }
         return true;
     }
 
+    private void startPinch(float x0, float y0, float x1, float y1) {
+        pinchX0 = pinchNewX0 = x0;
+        pinchY0 = pinchNewY0 = y0;
+        pinchX1 = pinchNewX1 = x1;
+        pinchY1 = pinchNewY1 = y1;
+        hasPendingPinch = false;
+    }
+
+    private void requestInputFlush() {
+        hasPendingInput = true;
+        postFrameTick();
+    }
+
+    @Override
+    protected void onFrameTick(long frameTimeNanos) {
+        super.onFrameTick(frameTimeNanos);
+        drainSubmittedPoints();
+        flushPendingInput();
+        stepFling(frameTimeNanos);
+        stepAnimation(frameTimeNanos);
+    }
+
+    /**
+     * 设置是否支持拖动后的惯性滑动，默认支持
+     *
+     * @param enabled
+     */
+    public void setFlingEnabled(boolean enabled) {
+        isFlingEnabled = enabled;
+        if (!enabled) {
+            stopFling();
+        }
+    }
+
+    /**
+     * 设置惯性滑动的速度衰减系数，越大停得越快，默认4，即每秒速度衰减为原来的e^-4
+     *
+     * @param friction
+     */
+    public void setFlingFriction(float friction) {
+        flingFriction = friction;
+    }
+
+    /**
+     * 是否正在惯性滑动
+     *
+     * @return
+     */
+    public boolean isFlinging() {
+        return isFlinging;
+    }
+
+    /**
+     * 停止惯性滑动
+     */
+    public void stopFling() {
+        isFlinging = false;
+    }
+
+    private void startFling(float vx, float vy) {
+        cancelAnimation();
+        flingVx = vx;
+        flingVy = vy;
+        lastFlingTimeNanos = 0;
+        isFlinging = true;
+        postFrameTick();
+    }
+
+    /**
+     * 按两帧的实际时间间隔积分速度，速度按指数衰减
+     * 地图中心不会被滑出屏幕，碰到屏幕边缘后该方向的速度清零
+     */
+    private void stepFling(long frameTimeNanos) {
+        if (!isFlinging) {
+            return;
+        }
+        if (lastFlingTimeNanos == 0) {//第一帧只记录时间
+            lastFlingTimeNanos = frameTimeNanos;
+            postFrameTick();
+            return;
+        }
+        float dt = (frameTimeNanos - lastFlingTimeNanos) / 1000000000.0f;
+        lastFlingTimeNanos = frameTimeNanos;
+        if (dt <= 0) {
+            postFrameTick();
+            return;
+        }
+        //v(t)=v0*e^(-kt)，在dt内的位移为v0*(1-e^(-k*dt))/k
+        float decay = (float) Math.exp(-flingFriction * dt);
+        float distance = flingFriction > 0 ? (1 - decay) / flingFriction : dt;
+        float dx = flingVx * distance;
+        float dy = flingVy * distance;
+        flingVx *= decay;
+        flingVy *= decay;
+
+        float x = mapCenterX + dx;
+        float y = mapCenterY + dy;
+        if (x < 0 || x > screenWidth) {
+            dx = Math.max(0, Math.min(screenWidth, x)) - mapCenterX;
+            flingVx = 0;
+        }
+        if (y < 0 || y > screenHeight) {
+            dy = Math.max(0, Math.min(screenHeight, y)) - mapCenterY;
+            flingVy = 0;
+        }
+        if (dx != 0 || dy != 0) {
+            translateMap(dx, dy);
+            onGesture(GESTURE_DRAG, dx, dy, 1, 0);
+        }
+        if (Math.hypot(flingVx, flingVy) < FLING_STOP_VELOCITY) {
+            isFlinging = false;
+        } else {
+            postFrameTick();
+        }
+    }
+
+    /**
+     * 将本帧累计的手势输入一次性应用到地图上
+     */
+    private void flushPendingInput() {
+        if (!hasPendingInput) {
+            return;
+        }
+        hasPendingInput = false;
+        float dx = pendingDx, dy = pendingDy, scale = pendingScale, rotate = pendingRotate;
+        pendingDx = pendingDy = pendingRotate = 0;
+        pendingScale = 1.0f;
+        if (dx != 0 || dy != 0) {
+            if (isSupportDragGesture) {
+                translateMap(dx, dy);
+            }
+            onGesture(GESTURE_DRAG, dx, dy, 1, 0);
+        }
+        if (rotate != 0) {
+            if (isSupportRotateGesture) {
+                rotate(rotate);
+            }
+            onGesture(GESTURE_ROTATE, 0, 0, 1, rotate);
+        }
+        if (scale != 1.0f) {
+            if (isSupportScaleGesture) {
+                //合并后的比例可能越界，限制在缩放范围内
+                float target = Math.max(minMapScale, Math.min(maxMapScale, mapScale * scale));
+                if (target != mapScale) {
+                    zoom(target / mapScale);
+                }
+            }
+            onGesture(GESTURE_SCALE, 0, 0, pendingGestureScale, 0);
+        }
+        if (hasPendingPinch) {
+            hasPendingPinch = false;
+            flushPinch();
+        }
+    }
+
+    /**
+     * 根据两指从上次位置到最新位置的变化，计算拖动、缩放和旋转并一次应用到地图
+     * 以两指中点为中心缩放旋转，中点的移动为拖动距离
+     */
+    private void flushPinch() {
+        float ox = pinchX1 - pinchX0, oy = pinchY1 - pinchY0;
+        float nx = pinchNewX1 - pinchNewX0, ny = pinchNewY1 - pinchNewY0;
+        float oldLen = (float) Math.sqrt(ox * ox + oy * oy);
+        float newLen = (float) Math.sqrt(nx * nx + ny * ny);
+        float px = (pinchX0 + pinchX1) / 2, py = (pinchY0 + pinchY1) / 2;
+        float dx = (pinchNewX0 + pinchNewX1) / 2 - px;
+        float dy = (pinchNewY0 + pinchNewY1) / 2 - py;
+        float scale = oldLen > 0 && newLen > 0 ? newLen / oldLen : 1.0f;
+        float rotate = (float) Math.toDegrees(Math.atan2(ny, nx) - Math.atan2(oy, ox));
+        //取最短方向的角度，避免跨过±180度时跳变
+        if (rotate > 180) {
+            rotate -= 360;
+        } else if (rotate < -180) {
+            rotate += 360;
+        }
+        pinchX0 = pinchNewX0;
+        pinchY0 = pinchNewY0;
+        pinchX1 = pinchNewX1;
+        pinchY1 = pinchNewY1;
+
+        if (!isSupportDragGesture) {
+            dx = dy = 0;
+        }
+        if (!isSupportScaleGesture) {
+            scale = 1.0f;
+        }
+        if (!isSupportRotateGesture) {
+            rotate = 0;
+        }
+        if (dx != 0 || dy != 0 || scale != 1.0f || rotate != 0) {
+            transformMap(dx, dy, scale, rotate, px, py);
+        }
+        if (dx != 0 || dy != 0) {
+            onGesture(GESTURE_DRAG, dx, dy, 1, 0);
+        }
+        if (scale != 1.0f) {
+            onGesture(GESTURE_SCALE, 0, 0, scale, 0);
+        }
+        if (rotate != 0) {
+            onGesture(GESTURE_ROTATE, 0, 0, 1, rotate);
+        }
+    }
+
     private void onGesture(@GestureAction int gesture, float dx, float dy, float scale, float rotate) {
         if (onGestureListener != null) {
             onGestureListener.onGesture(gesture, dx, dy, scale, rotate);
@@ -723,8 +1889,19 @@ public class GestureSurfaceView extends BaseSurfaceView {
      * @return
      */
     private float rotation(MotionEvent event) {
-        double delta_x = (event.getX(0) - event.getX(1));
-        double delta_y = (event.getY(0) - event.getY(1));
+        return rotation(event, -1);
+    }
+
+    /**
+     * 指定采样点的两指旋转角度
+     *
+     * @param event
+     * @param pos   历史采样点序号，-1表示当前采样点
+     * @return
+     */
+    private float rotation(MotionEvent event, int pos) {
+        double delta_x = getX(event, 0, pos) - getX(event, 1, pos);
+        double delta_y = getY(event, 0, pos) - getY(event, 1, pos);
         double radians = Math.atan2(delta_y, delta_x);
         return (float) Math.toDegrees(radians);
     }
@@ -736,11 +1913,23 @@ public class GestureSurfaceView extends BaseSurfaceView {
      * @return
      */
     private float spacing(MotionEvent event) {
-        float x = event.getX(0) - event.getX(1);
-        float y = event.getY(0) - event.getY(1);
+        return spacing(event, -1);
+    }
+
+    private float spacing(MotionEvent event, int pos) {
+        float x = getX(event, 0, pos) - getX(event, 1, pos);
+        float y = getY(event, 0, pos) - getY(event, 1, pos);
         return (float) Math.sqrt(x * x + y * y);
     }
 
+    private static float getX(MotionEvent event, int pointerIndex, int pos) {
+        return pos < 0 ? event.getX(pointerIndex) : event.getHistoricalX(pointerIndex, pos);
+    }
+
+    private static float getY(MotionEvent event, int pointerIndex, int pos) {
+        return pos < 0 ? event.getY(pointerIndex) : event.getHistoricalY(pointerIndex, pos);
+    }
+
     @Override
     public void surfaceCreated(SurfaceHolder surfaceHolder) {
         super.surfaceCreated(surfaceHolder);
@@ -751,7 +1940,7 @@ public class GestureSurfaceView extends BaseSurfaceView {
     public void surfaceChanged(SurfaceHolder surfaceHolder, int i, int i1, int i2) {
         super.surfaceChanged(surfaceHolder, i, i1, i2);
         Log.i(TAG, "surfaceChanged=" + i1 + "," + i2);
-        if (mapBitmap != null) {
+        if (hasMap()) {
             initMapBitmap();
         }
     }
@@ -759,27 +1948,98 @@ public class GestureSurfaceView extends BaseSurfaceView {
     @Override
     public void surfaceDestroyed(SurfaceHolder surfaceHolder) {
         super.surfaceDestroyed(surfaceHolder);
+        stopFling();
     }
 
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        //VelocityTracker来自全局对象池，不再接收触摸事件时归还，下次触摸时重新获取
+        if (velocityTracker != null) {
+            velocityTracker.recycle();
+            velocityTracker = null;
+        }
+    }
+
+    @Override
+    public DisplayList recordFrame(DisplayList out) {
+        //录制在调用线程中进行，结束后恢复drawingThread，避免调用线程之后被当作绘制线程而读到旧的帧快照
+        Thread previous = drawingThread;
+        try {
+            return super.recordFrame(out);
+        } finally {
+            drawingThread = previous;
+        }
+    }
+
+    @Override
+    protected void onPrepareFrame() {
+        super.onPrepareFrame();
+        //取UI线程最新发布的相机状态和点快照，本帧内只使用这一份
+        beginPhase(FrameStats.PHASE_PREPARE);
+        drawingThread = Thread.currentThread();
+        CameraState camera = frameCamera = cameraBuffer.acquire();
+        framePoints = points.snapshot();
+        syncPointIndex(camera, framePoints);
+        //在lockCanvas之前完成投影和裁剪，绘制时只需一次drawPoints，相机和点都没有变化时直接复用上一帧的结果
+        if (isDrawAddPoints) {
+            addPointsCache.setMargin(pointSize);
+            if (!addPointsCache.isValid(camera, framePoints, screenWidth, screenHeight)) {
+                queryVisiblePoints(pointSize, visiblePoints);
+                addPointsCache.project(camera, framePoints, visiblePoints, screenWidth, screenHeight);
+            }
+        }
+        for (ProjectionCache cache : projectionCaches) {
+            cache.update(camera, screenWidth, screenHeight);
+        }
+        endPhase(FrameStats.PHASE_PREPARE);
+    }
 
     @Override
     public void doDraw(Canvas c) {
-        if (mapBitmap != null) {
-            c.drawBitmap(mapBitmap, matrix, null);
+        CameraState camera = frameCamera;
+
+        beginPhase(FrameStats.PHASE_MAP);
+        MapPyramid pyramid = mapPyramid;
+        Bitmap bitmap = mapBitmap;
+        TiledMapLayer tiled = tiledMapLayer;
+        if (pyramid != null) {
+            pyramid.draw(c, camera.matrix, camera.scale);
+        } else if (bitmap != null) {
+            c.drawBitmap(bitmap, camera.matrix, null);
+        } else if (tiled != null) {
+            tiled.draw(c, camera.matrix, camera.scale, screenWidth, screenHeight);
         }
+        endPhase(FrameStats.PHASE_MAP);
 
         if (isDrawAddPoints) {
+            beginPhase(FrameStats.PHASE_POINTS);
             drawAddPoints(c);
+            endPhase(FrameStats.PHASE_POINTS);
+        }
+
+        if (!overlays.isEmpty()) {
+            beginPhase(FrameStats.PHASE_OVERLAYS);
+            for (MapOverlay overlay : overlays) {
+                overlay.draw(c, camera.matrix, camera.srcMapWidth, camera.srcMapHeight);
+            }
+            endPhase(FrameStats.PHASE_OVERLAYS);
         }
 
+        beginPhase(FrameStats.PHASE_OTHER);
         drawOther(c);
+        endPhase(FrameStats.PHASE_OTHER);
 
         if (isDrawCenterIcon) {
+            beginPhase(FrameStats.PHASE_CENTER_ICON);
             drawCenterIcon(c);
+            endPhase(FrameStats.PHASE_CENTER_ICON);
         }
 
         if (isShowReference) {
+            beginPhase(FrameStats.PHASE_REFERENCE);
             drawReference(c);
+            endPhase(FrameStats.PHASE_REFERENCE);
         }
 
     }
@@ -792,9 +2052,9 @@ public class GestureSurfaceView extends BaseSurfaceView {
     private void drawAddPoints(Canvas c) {
         paint.setColor(pointColor);
         paint.setStyle(Paint.Style.FILL);
-        for (PointF p : getPointsList()) {
-            PointF pf = convertToNeedPoint(p, false);
-            c.drawCircle(pf.x, pf.y, pointSize, paint);
+        int n = addPointsCache.size();
+        if (n > 0) {
+            drawScreenPoints(c, addPointsCache.getScreenPoints(), n, pointSize, paint);
         }
     }
 
@@ -833,6 +2093,9 @@ public class GestureSurfaceView extends BaseSurfaceView {
      * @param c
      */
     private void drawReference(Canvas c) {
+        CameraState camera = frameCamera;
+        float mapCenterX = camera.centerX;
+        float mapCenterY = camera.centerY;
 
         paint.setColor(Color.RED);//红色坐标系
         //画原点
@@ -843,18 +2106,19 @@ public class GestureSurfaceView extends BaseSurfaceView {
         c.drawText("(" + mapCenterX + "," + mapCenterY + ")", mapCenterX, mapCenterY, paint);
 
         //画旋转角度
-        c.drawText("rotate=" + mapRotate, 100, 20, paint);
+        c.drawText("rotate=" + camera.rotate, 100, 20, paint);
 
         //画缩放比例
-        c.drawText("scale=" + mapScale, 300, 20, paint);
+        c.drawText("scale=" + camera.scale, 300, 20, paint);
 
         //画图片边框
         paint.setStyle(Paint.Style.STROKE);
-        Path path = new Path();
-        PointF dLeftTop = mapRectf.getLeftTopPoint();
-        PointF dLeftDown = mapRectf.getLeftDownPoint();
-        PointF dRightTop = mapRectf.getRightTopPoint();
-        PointF dRightDown = mapRectf.getRightDownPoint();
+        Path path = referencePath;
+        path.rewind();
+        camera.rect.getLeftTopPoint(dLeftTop);
+        camera.rect.getLeftDownPoint(dLeftDown);
+        camera.rect.getRightTopPoint(dRightTop);
+        camera.rect.getRightDownPoint(dRightDown);
         path.moveTo(dLeftTop.x, dLeftTop.y);
         path.lineTo(dLeftDown.x, dLeftDown.y);
         path.lineTo(dRightDown.x, dRightDown.y);
@@ -866,9 +2130,11 @@ public class GestureSurfaceView extends BaseSurfaceView {
 
 
         //画点
-        for (PointF p : points) {
-            PointF pf = convertToNeedPoint(p, false);
-            c.drawText("(" + pf.x + "," + pf.y + ")", pf.x, pf.y, paint);
+        int n = projectVisiblePoints(REFERENCE_TEXT_MARGIN);
+        for (int i = 0; i < n; i++) {
+            float x = screenPoints[i * 2];
+            float y = screenPoints[i * 2 + 1];
+            c.drawText("(" + x + "," + y + ")", x, y, paint);
         }
         //画屏幕中心点坐标
         c.drawText("(" + screenCenterX + "," + screenCenterY + ")", screenCenterX, screenCenterY, paint);
@@ -887,10 +2153,14 @@ public class GestureSurfaceView extends BaseSurfaceView {
      * @param dRightTop
      */
     private void drawMapReference(Canvas c, PointF dLeftTop, PointF dLeftDown, PointF dRightTop) {
-        if (mapBitmap == null) {
+        if (!hasMap()) {
             return;
         }
         paint.setColor(Color.BLUE);//蓝色坐标系
+        CameraState camera = frameCamera;
+        float mapCenterX = camera.centerX;
+        float mapCenterY = camera.centerY;
+        float mapScale = camera.scale;
 
         //画原点
         if (mapCoordinate == COORDINATE_MAP_LEFT_TOP) {
@@ -901,27 +2171,29 @@ public class GestureSurfaceView extends BaseSurfaceView {
 
 
         //画图片中心点坐标
-        PointF oCenter = new PointF(mapWidth / 2.0f, mapHeight / 2.0f);//相对中心点
+        PointF oCenter = new PointF(camera.mapWidth / 2.0f, camera.mapHeight / 2.0f);//相对中心点
         c.drawText("(" + oCenter.x + "," + oCenter.y + ")", mapCenterX, mapCenterY + 20, paint);
         paint.setColor(Color.GREEN);
         c.drawText("(" + oCenter.x / mapScale + "," + oCenter.y / mapScale + ")", mapCenterX, mapCenterY + 40, paint);
 
-        for (PointF p : points) {
-
-            PointF pf = convertToNeedPoint(p, false);
-            PointF rp = convertToNeedPoint(p, true);
+        for (int i = 0, n = visiblePoints.size(); i < n; i++) {//复用drawReference中查询和变换的可见点
+            int index = visiblePoints.get(i);
+            tempPoint.set(framePoints.getX(index), framePoints.getY(index));
+            PointF rp = convertToNeedPoint(tempPoint, true, tempPoint);
+            float x = screenPoints[i * 2];
+            float y = screenPoints[i * 2 + 1];
             paint.setColor(Color.BLUE);
-            c.drawText("(" + rp.x * mapScale + "," + rp.y * mapScale + ")", pf.x, pf.y + 20, paint);
+            c.drawText("(" + rp.x * mapScale + "," + rp.y * mapScale + ")", x, y + 20, paint);
             paint.setColor(Color.GREEN);
-            c.drawText("(" + rp.x + "," + rp.y + ")", pf.x, pf.y + 40, paint);
+            c.drawText("(" + rp.x + "," + rp.y + ")", x, y + 40, paint);
         }
         paint.setColor(Color.BLUE);
-        c.drawText("W=" + mapRectf.getWidth(), dRightTop.x, dRightTop.y, paint);
-        c.drawText("H=" + mapRectf.getHeight(), dLeftDown.x, dLeftDown.y + 20, paint);
+        c.drawText("W=" + camera.rect.getWidth(), dRightTop.x, dRightTop.y, paint);
+        c.drawText("H=" + camera.rect.getHeight(), dLeftDown.x, dLeftDown.y + 20, paint);
 
         paint.setColor(Color.GREEN);
-        c.drawText("srcW=" + srcMapWidth, dRightTop.x, dRightTop.y + 20, paint);
-        c.drawText("srcH=" + srcMapHeight, dLeftDown.x, dLeftDown.y + 40, paint);
+        c.drawText("srcW=" + camera.srcMapWidth, dRightTop.x, dRightTop.y + 20, paint);
+        c.drawText("srcH=" + camera.srcMapHeight, dLeftDown.x, dLeftDown.y + 40, paint);
     }
 
 
@@ -0,0 +1,156 @@
+package com.junmeng.gsv;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Picture;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 地图图层，内容固定在地图上(如标注、区域、路线)，只在内容变化时重新录制一次，之后每帧按当前地图矩阵直接绘制
+ * 每帧的开销与图层内的元素个数无关，适合静态或很少变化的大量标注
+ * <p>
+ * 子类在{@link #onRecord(Canvas)}中使用点坐标(与getCurrentPoint返回的点坐标一致)绘制内容，内容变化后调用{@link #invalidate()}
+ * 录制在绘制线程中进行，onRecord中读取的数据需要保证线程安全
+ */
+
+public abstract class MapOverlay {
+
+    /**
+     * 录制为Picture，任意缩放都保持矢量清晰
+     */
+    public static final int CACHE_MODE_PICTURE = 0;
+    /**
+     * 录制到离屏位图，绘制时只需一次位图绘制，适合元素非常多的图层，放大后会模糊
+     */
+    public static final int CACHE_MODE_BITMAP = 1;
+
+    private final int cacheMode;
+    private final float resolution;//离屏位图相对原图的分辨率
+    private final AtomicLong contentVersion = new AtomicLong();//可在任意线程invalidate
+    private long recordedVersion = -1;
+    private int recordedMapWidth, recordedMapHeight;
+    private boolean isVisible = true;
+
+    private Picture picture;
+    private Bitmap bitmap;
+    private final Matrix drawMatrix = new Matrix();
+    private final Paint bitmapPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    volatile GestureSurfaceView view;
+
+    public MapOverlay() {
+        this(CACHE_MODE_PICTURE, 1.0f);
+    }
+
+    /**
+     * @param cacheMode  缓存方式
+     * @param resolution 离屏位图相对原图的分辨率，如0.5表示宽高各为原图的一半，只对CACHE_MODE_BITMAP有效
+     */
+    public MapOverlay(int cacheMode, float resolution) {
+        this.cacheMode = cacheMode;
+        this.resolution = resolution > 0 ? resolution : 1.0f;
+    }
+
+    /**
+     * 录制图层内容
+     *
+     * @param c 坐标系已平移到地图中心，直接使用点坐标绘制
+     */
+    protected abstract void onRecord(Canvas c);
+
+    /**
+     * 图层内容已变化，下一帧重新录制，可在任意线程调用
+     */
+    public void invalidate() {
+        contentVersion.incrementAndGet();
+        GestureSurfaceView v = view;
+        if (v != null) {
+            v.invalidateFrame();
+        }
+    }
+
+    /**
+     * 获得内容版本，每次invalidate后加1
+     *
+     * @return
+     */
+    public long getContentVersion() {
+        return contentVersion.get();
+    }
+
+    public void setVisible(boolean visible) {
+        isVisible = visible;
+        GestureSurfaceView v = view;
+        if (v != null) {
+            v.invalidateFrame();
+        }
+    }
+
+    public boolean isVisible() {
+        return isVisible;
+    }
+
+    /**
+     * 在绘制线程中调用，内容或地图大小变化后重新录制，再按地图矩阵绘制
+     *
+     * @param c
+     * @param matrix       原图坐标到屏幕坐标的矩阵
+     * @param srcMapWidth  原图宽
+     * @param srcMapHeight 原图高
+     */
+    void draw(Canvas c, Matrix matrix, int srcMapWidth, int srcMapHeight) {
+        if (!isVisible || srcMapWidth <= 0 || srcMapHeight <= 0) {
+            return;
+        }
+        long version = contentVersion.get();
+        if (version != recordedVersion || srcMapWidth != recordedMapWidth || srcMapHeight != recordedMapHeight) {
+            record(srcMapWidth, srcMapHeight);
+            recordedVersion = version;
+            recordedMapWidth = srcMapWidth;
+            recordedMapHeight = srcMapHeight;
+        }
+        if (cacheMode == CACHE_MODE_BITMAP) {
+            if (bitmap != null) {
+                drawMatrix.set(matrix);
+                drawMatrix.preScale(srcMapWidth * 1.0f / bitmap.getWidth(), srcMapHeight * 1.0f / bitmap.getHeight());
+                c.drawBitmap(bitmap, drawMatrix, bitmapPaint);
+            }
+        } else if (picture != null) {
+            c.save();
+            c.concat(matrix);
+            c.drawPicture(picture);
+            c.restore();
+        }
+    }
+
+    private void record(int srcMapWidth, int srcMapHeight) {
+        if (cacheMode == CACHE_MODE_BITMAP) {
+            int w = Math.max(1, Math.round(srcMapWidth * resolution));
+            int h = Math.max(1, Math.round(srcMapHeight * resolution));
+            try {
+                if (bitmap == null || bitmap.getWidth() != w || bitmap.getHeight() != h) {
+                    bitmap = Bitmap.createBitmap(w, h, Bitmap.Config.ARGB_8888);
+                } else {
+                    bitmap.eraseColor(0);
+                }
+            } catch (OutOfMemoryError e) {
+                e.printStackTrace();
+                bitmap = null;
+                return;
+            }
+            Canvas canvas = new Canvas(bitmap);
+            canvas.scale(w * 1.0f / srcMapWidth, h * 1.0f / srcMapHeight);
+            canvas.translate(srcMapWidth / 2.0f, srcMapHeight / 2.0f);
+            onRecord(canvas);
+        } else {
+            Picture p = new Picture();
+            Canvas canvas = p.beginRecording(srcMapWidth, srcMapHeight);
+            canvas.translate(srcMapWidth / 2.0f, srcMapHeight / 2.0f);
+            onRecord(canvas);
+            p.endRecording();
+            picture = p;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.junmeng.gsv;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.os.Process;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 地图位图的多级缩小图(1/2、1/4、1/8...)，地图缩小显示时使用对应级别绘制，减少采样开销和锯齿
+ * 各级缩小图在后台线程中生成，总内存不超过原图的1/3
+ */
+
+class MapPyramid {
+
+    private static final String TAG = "MapPyramid";
+    private static final int MIN_LEVEL_SIZE = 64;//缩小图的最小边长
+
+    private static final ExecutorService BUILDER = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(final Runnable r) {
+            Thread t = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    r.run();
+                }
+            }, TAG);
+            t.setDaemon(true);
+            return t;
+        }
+    });
+
+    private final Bitmap source;
+    private final Bitmap[] levels;//levels[0]为原图，levels[n]为1/2^n
+    private volatile int builtLevels = 1;//已生成的级数
+    private volatile boolean isCancelled = false;
+    private volatile long byteCount = 0;//缩小图占用的内存
+
+    private final Matrix drawMatrix = new Matrix();
+    private final Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+
+    /**
+     * @param source     原图
+     * @param minScale   地图的最小缩放比例，据此决定需要生成的级数
+     * @param onLevelBuilt 每生成一级后的回调
+     */
+    MapPyramid(Bitmap source, float minScale, final Runnable onLevelBuilt) {
+        this.source = source;
+        int count = 1;
+        int w = source.getWidth();
+        int h = source.getHeight();
+        while (minScale * (1 << count) <= 1.0f && Math.min(w >> count, h >> count) >= MIN_LEVEL_SIZE) {
+            count++;
+        }
+        levels = new Bitmap[count];
+        levels[0] = source;
+        if (count > 1) {
+            BUILDER.execute(new Runnable() {
+                @Override
+                public void run() {
+                    build(onLevelBuilt);
+                }
+            });
+        }
+    }
+
+    private void build(Runnable onLevelBuilt) {
+        for (int i = 1; i < levels.length && !isCancelled; i++) {
+            Bitmap prev = levels[i - 1];
+            try {
+                Bitmap b = Bitmap.createScaledBitmap(prev, Math.max(1, prev.getWidth() / 2), Math.max(1, prev.getHeight() / 2), true);
+                levels[i] = b;
+                byteCount += b.getRowBytes() * b.getHeight();
+                builtLevels = i + 1;
+            } catch (OutOfMemoryError e) {
+                e.printStackTrace();
+                return;
+            }
+            onLevelBuilt.run();
+        }
+    }
+
+    /**
+     * 获得缩小图占用的内存(不包括原图)
+     *
+     * @return 字节数
+     */
+    long getByteCount() {
+        return byteCount;
+    }
+
+    /**
+     * 取消还未完成的生成任务
+     */
+    void cancel() {
+        isCancelled = true;
+    }
+
+    /**
+     * 根据缩放比例选择不需要放大采样的最小一级
+     *
+     * @param scale
+     * @return
+     */
+    int levelForScale(float scale) {
+        int built = builtLevels;
+        int level = 0;
+        while (level + 1 < built && scale * (1 << (level + 1)) <= 1.0f) {
+            level++;
+        }
+        return level;
+    }
+
+    /**
+     * 使用合适级别的缩小图绘制地图
+     *
+     * @param c
+     * @param matrix 原图坐标到屏幕坐标的矩阵
+     * @param scale  当前缩放比例
+     */
+    void draw(Canvas c, Matrix matrix, float scale) {
+        int level = levelForScale(scale);
+        if (level == 0) {
+            c.drawBitmap(source, matrix, null);
+            return;
+        }
+        Bitmap b = levels[level];
+        //缩小图的宽高经过取整，按实际比例修正矩阵
+        drawMatrix.set(matrix);
+        drawMatrix.preScale(source.getWidth() * 1.0f / b.getWidth(), source.getHeight() * 1.0f / b.getHeight());
+        c.drawBitmap(b, drawMatrix, paint);
+    }
+}
@@ -0,0 +1,41 @@
+package com.junmeng.gsv;
+
+import android.graphics.Bitmap;
+import android.graphics.Rect;
+
+/**
+ * 地图瓦片提供者，用于显示无法整张解码的超大地图
+ * 解码方法会在后台线程中调用
+ */
+
+public interface MapTileProvider {
+
+    /**
+     * 获得原地图宽度
+     *
+     * @return
+     */
+    int getMapWidth();
+
+    /**
+     * 获得原地图高度
+     *
+     * @return
+     */
+    int getMapHeight();
+
+    /**
+     * 解码原图中指定区域的瓦片
+     *
+     * @param region     原图中的区域
+     * @param sampleSize 采样率，为2的幂，返回的位图宽高约为区域宽高除以采样率
+     * @return 解码失败时返回null
+     */
+    Bitmap decodeTile(Rect region, int sampleSize);
+
+    /**
+     * 释放资源，不再使用此提供者时调用
+     * 在解码的后台线程中调用，可能与正在进行的decodeTile并发
+     */
+    void release();
+}
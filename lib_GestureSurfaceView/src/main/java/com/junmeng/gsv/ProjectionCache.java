@@ -0,0 +1,158 @@
+package com.junmeng.gsv;
+
+import android.os.Build;
+
+import com.junmeng.gsv.geometry.IntList;
+import com.junmeng.gsv.geometry.ParallelPointProjector;
+import com.junmeng.gsv.geometry.PointStore;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 点的屏幕坐标缓存，只有相机版本、点集合的内容版本或画面大小变化时才重新投影，否则直接复用上一次的结果
+ * 地图静止时每帧几乎没有投影的开销
+ * <p>
+ * 通过{@link GestureSurfaceView#addProjectionCache(ProjectionCache)}注册后，每帧在lockCanvas之前由绘制线程更新，
+ * 在drawOther中可直接使用getScreenPoints的结果绘制，如{@link GestureSurfaceView#drawScreenPoints}
+ */
+
+public class ProjectionCache {
+
+    static final int PARALLEL_THRESHOLD = 20000;//默认点数达到此值时并行投影
+
+    private final PointStore store;
+    private final ParallelPointProjector projector = createProjector();
+    private volatile float margin;
+    private final AtomicLong stamp = new AtomicLong();//调用invalidate时加1
+
+    //上一次投影时的版本，只在绘制线程中使用
+    private long projectedCameraVersion = -1;
+    private long projectedContentVersion = -1;
+    private long projectedStamp = -1;
+    private int projectedWidth = -1, projectedHeight = -1;
+    private float projectedMargin = Float.NaN;
+    private PointStore.Snapshot projectedPoints;
+
+    /**
+     * @param store  要投影的点集合，坐标与getCurrentPoint返回的点坐标一致
+     * @param margin 屏幕四周扩大的距离(px)，超出此范围的点会被裁剪
+     */
+    public ProjectionCache(PointStore store, float margin) {
+        this.store = store;
+        this.margin = margin;
+    }
+
+    static ParallelPointProjector createProjector() {
+        //ForkJoinPool在API 21才加入，低版本只顺序处理
+        ParallelPointProjector projector = new ParallelPointProjector(Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP
+                ? ParallelPointProjector.getDefaultPool() : null, ParallelPointProjector.DEFAULT_CHUNK_SIZE);
+        projector.setParallelThreshold(PARALLEL_THRESHOLD);
+        return projector;
+    }
+
+    public PointStore getStore() {
+        return store;
+    }
+
+    public void setMargin(float margin) {
+        this.margin = margin;
+    }
+
+    /**
+     * 设置并行投影的最少点数
+     *
+     * @param count Integer.MAX_VALUE表示总是顺序处理
+     */
+    public void setParallelThreshold(int count) {
+        projector.setParallelThreshold(count);
+    }
+
+    public int getParallelThreshold() {
+        return projector.getParallelThreshold();
+    }
+
+    /**
+     * 强制下一帧重新投影，点集合以外的数据(如绘制用的参数)变化时使用，可在任意线程调用
+     */
+    public void invalidate() {
+        stamp.incrementAndGet();
+    }
+
+    /**
+     * 获得投影后的屏幕坐标，x,y交替，有效长度为size()*2
+     *
+     * @return
+     */
+    public float[] getScreenPoints() {
+        return projector.getScreenPoints();
+    }
+
+    /**
+     * 获得投影后每个点在getPoints中的序号，有效长度为size()
+     *
+     * @return
+     */
+    public int[] getIndices() {
+        return projector.getIndices();
+    }
+
+    /**
+     * 获得屏幕范围内的点的个数
+     *
+     * @return
+     */
+    public int size() {
+        return projectedPoints != null ? projector.size() : 0;
+    }
+
+    /**
+     * 获得投影时使用的点快照，getIndices中的序号对应此快照
+     *
+     * @return
+     */
+    public PointStore.Snapshot getPoints() {
+        return projectedPoints;
+    }
+
+    /**
+     * 缓存的结果是否仍然有效
+     *
+     * @param camera 当前帧的相机状态
+     * @param snap   当前帧的点快照
+     */
+    boolean isValid(CameraState camera, PointStore.Snapshot snap, int width, int height) {
+        return projectedPoints != null && camera.version == projectedCameraVersion && snap.getVersion() == projectedContentVersion
+                && stamp.get() == projectedStamp && width == projectedWidth && height == projectedHeight && margin == projectedMargin;
+    }
+
+    /**
+     * 重新投影
+     *
+     * @param indices 只投影这些序号的点(如空间索引的查询结果)，为null时投影全部点
+     */
+    void project(CameraState camera, PointStore.Snapshot snap, IntList indices, int width, int height) {
+        float m = margin;
+        projectedStamp = stamp.get();
+        projector.project(snap, indices, camera.transform, -m, -m, width + m, height + m);
+        projectedCameraVersion = camera.version;
+        projectedContentVersion = snap.getVersion();
+        projectedWidth = width;
+        projectedHeight = height;
+        projectedMargin = m;
+        projectedPoints = snap;
+    }
+
+    /**
+     * 在绘制线程中调用，需要时重新投影全部点
+     *
+     * @return 是否重新投影了
+     */
+    boolean update(CameraState camera, int width, int height) {
+        PointStore.Snapshot snap = store.snapshot();
+        if (isValid(camera, snap, width, height)) {
+            return false;
+        }
+        project(camera, snap, null, width, height);
+        return true;
+    }
+}
@@ -0,0 +1,733 @@
+package com.junmeng.gsv;
+
+import android.annotation.TargetApi;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.DrawFilter;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.Picture;
+import android.graphics.PorterDuff;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.graphics.Region;
+import android.os.Build;
+
+import com.junmeng.gsv.geometry.DisplayList;
+
+/**
+ * 记录绘制命令的Canvas，每个命令记入{@link DisplayList}，设置了target时同时转发给target绘制
+ * 没有target时不产生任何像素，可在没有Surface的情况下(如单元测试、基准测试)统计一帧的绘制命令
+ * 所有公开的状态和绘制方法都会转发给target，开启记录不会改变画面；查询状态(如getSaveCount、getClipBounds)时返回target的结果
+ */
+
+public class RecordingCanvas extends Canvas {
+
+    private DisplayList displayList;
+    private Canvas target;
+    private int width, height;
+
+    public RecordingCanvas(DisplayList displayList) {
+        this.displayList = displayList;
+    }
+
+    public void setDisplayList(DisplayList displayList) {
+        this.displayList = displayList;
+    }
+
+    public DisplayList getDisplayList() {
+        return displayList;
+    }
+
+    /**
+     * 设置转发的目标，为null时只记录不绘制
+     *
+     * @param target
+     */
+    public void setTarget(Canvas target) {
+        this.target = target;
+    }
+
+    /**
+     * 清除自身的保存状态和变换，每帧开始前调用，不影响target，也不会被记录
+     */
+    public void reset() {
+        super.restoreToCount(1);
+        super.setMatrix(null);
+    }
+
+    /**
+     * 设置没有target时返回的画布大小
+     */
+    public void setSize(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    //***********************查询**************************
+
+    @Override
+    public int getWidth() {
+        return target != null ? target.getWidth() : width;
+    }
+
+    @Override
+    public int getHeight() {
+        return target != null ? target.getHeight() : height;
+    }
+
+    @Override
+    public boolean isHardwareAccelerated() {
+        return target != null && target.isHardwareAccelerated();
+    }
+
+    @Override
+    public boolean isOpaque() {
+        return target != null ? target.isOpaque() : super.isOpaque();
+    }
+
+    @Override
+    public int getDensity() {
+        return target != null ? target.getDensity() : super.getDensity();
+    }
+
+    @Override
+    public void setDensity(int density) {
+        super.setDensity(density);
+        if (target != null) {
+            target.setDensity(density);
+        }
+    }
+
+    @Override
+    public int getMaximumBitmapWidth() {
+        return target != null ? target.getMaximumBitmapWidth() : super.getMaximumBitmapWidth();
+    }
+
+    @Override
+    public int getMaximumBitmapHeight() {
+        return target != null ? target.getMaximumBitmapHeight() : super.getMaximumBitmapHeight();
+    }
+
+    @Override
+    public int getSaveCount() {
+        return target != null ? target.getSaveCount() : super.getSaveCount();
+    }
+
+    @SuppressWarnings("deprecation")
+    @Override
+    public void getMatrix(Matrix ctm) {
+        if (target != null) {
+            target.getMatrix(ctm);
+        } else {
+            super.getMatrix(ctm);
+        }
+    }
+
+    @Override
+    public boolean getClipBounds(Rect bounds) {
+        return target != null ? target.getClipBounds(bounds) : super.getClipBounds(bounds);
+    }
+
+    @Override
+    public boolean quickReject(RectF rect, EdgeType type) {
+        return target != null ? target.quickReject(rect, type) : super.quickReject(rect, type);
+    }
+
+    @Override
+    public boolean quickReject(Path path, EdgeType type) {
+        return target != null ? target.quickReject(path, type) : super.quickReject(path, type);
+    }
+
+    @Override
+    public boolean quickReject(float left, float top, float right, float bottom, EdgeType type) {
+        return target != null ? target.quickReject(left, top, right, bottom, type) : super.quickReject(left, top, right, bottom, type);
+    }
+
+    @Override
+    public DrawFilter getDrawFilter() {
+        return target != null ? target.getDrawFilter() : super.getDrawFilter();
+    }
+
+    @Override
+    public void setDrawFilter(DrawFilter filter) {
+        super.setDrawFilter(filter);
+        if (target != null) {
+            target.setDrawFilter(filter);
+        }
+    }
+
+    //***********************状态**************************
+
+    @Override
+    public int save() {
+        displayList.record(DisplayList.OP_SAVE, 0);
+        int count = super.save();
+        return target != null ? target.save() : count;
+    }
+
+    @SuppressWarnings("deprecation")
+    @Override
+    public int save(int saveFlags) {
+        displayList.record(DisplayList.OP_SAVE, 0);
+        int count = super.save(saveFlags);
+        return target != null ? target.save(saveFlags) : count;
+    }
+
+    @SuppressWarnings("deprecation")
+    @Override
+    public int saveLayer(RectF bounds, Paint paint, int saveFlags) {
+        displayList.record(DisplayList.OP_SAVE, 0);
+        int count = super.save();
+        return target != null ? target.saveLayer(bounds, paint, saveFlags) : count;
+    }
+
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    @Override
+    public int saveLayer(RectF bounds, Paint paint) {
+        displayList.record(DisplayList.OP_SAVE, 0);
+        int count = super.save();
+        return target != null ? target.saveLayer(bounds, paint) : count;
+    }
+
+    @SuppressWarnings("deprecation")
+    @Override
+    public int saveLayer(float left, float top, float right, float bottom, Paint paint, int saveFlags) {
+        displayList.record(DisplayList.OP_SAVE, 0);
+        int count = super.save();
+        return target != null ? target.saveLayer(left, top, right, bottom, paint, saveFlags) : count;
+    }
+
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    @Override
+    public int saveLayer(float left, float top, float right, float bottom, Paint paint) {
+        displayList.record(DisplayList.OP_SAVE, 0);
+        int count = super.save();
+        return target != null ? target.saveLayer(left, top, right, bottom, paint) : count;
+    }
+
+    @SuppressWarnings("deprecation")
+    @Override
+    public int saveLayerAlpha(RectF bounds, int alpha, int saveFlags) {
+        displayList.record(DisplayList.OP_SAVE, 0);
+        int count = super.save();
+        return target != null ? target.saveLayerAlpha(bounds, alpha, saveFlags) : count;
+    }
+
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    @Override
+    public int saveLayerAlpha(RectF bounds, int alpha) {
+        displayList.record(DisplayList.OP_SAVE, 0);
+        int count = super.save();
+        return target != null ? target.saveLayerAlpha(bounds, alpha) : count;
+    }
+
+    @SuppressWarnings("deprecation")
+    @Override
+    public int saveLayerAlpha(float left, float top, float right, float bottom, int alpha, int saveFlags) {
+        displayList.record(DisplayList.OP_SAVE, 0);
+        int count = super.save();
+        return target != null ? target.saveLayerAlpha(left, top, right, bottom, alpha, saveFlags) : count;
+    }
+
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    @Override
+    public int saveLayerAlpha(float left, float top, float right, float bottom, int alpha) {
+        displayList.record(DisplayList.OP_SAVE, 0);
+        int count = super.save();
+        return target != null ? target.saveLayerAlpha(left, top, right, bottom, alpha) : count;
+    }
+
+    @Override
+    public void restore() {
+        displayList.record(DisplayList.OP_RESTORE, 0);
+        super.restore();
+        if (target != null) {
+            target.restore();
+        }
+    }
+
+    @Override
+    public void restoreToCount(int saveCount) {
+        displayList.record(DisplayList.OP_RESTORE, 0);
+        super.restoreToCount(Math.max(1, Math.min(saveCount, super.getSaveCount())));
+        if (target != null) {
+            target.restoreToCount(saveCount);
+        }
+    }
+
+    @Override
+    public void concat(Matrix matrix) {
+        displayList.record(DisplayList.OP_TRANSFORM, 0);
+        super.concat(matrix);
+        if (target != null) {
+            target.concat(matrix);
+        }
+    }
+
+    @Override
+    public void setMatrix(Matrix matrix) {
+        displayList.record(DisplayList.OP_TRANSFORM, 0);
+        super.setMatrix(matrix);
+        if (target != null) {
+            target.setMatrix(matrix);
+        }
+    }
+
+    @Override
+    public void translate(float dx, float dy) {
+        displayList.record(DisplayList.OP_TRANSFORM, 0);
+        super.translate(dx, dy);
+        if (target != null) {
+            target.translate(dx, dy);
+        }
+    }
+
+    @Override
+    public void scale(float sx, float sy) {
+        displayList.record(DisplayList.OP_TRANSFORM, 0);
+        super.scale(sx, sy);
+        if (target != null) {
+            target.scale(sx, sy);
+        }
+    }
+
+    @Override
+    public void rotate(float degrees) {
+        displayList.record(DisplayList.OP_TRANSFORM, 0);
+        super.rotate(degrees);
+        if (target != null) {
+            target.rotate(degrees);
+        }
+    }
+
+    @Override
+    public void skew(float sx, float sy) {
+        displayList.record(DisplayList.OP_TRANSFORM, 0);
+        super.skew(sx, sy);
+        if (target != null) {
+            target.skew(sx, sy);
+        }
+    }
+
+    //***********************裁剪**************************
+
+    @Override
+    public boolean clipRect(float left, float top, float right, float bottom, Region.Op op) {
+        displayList.record(DisplayList.OP_CLIP, 0);
+        boolean result = super.clipRect(left, top, right, bottom, op);
+        return target != null ? target.clipRect(left, top, right, bottom, op) : result;
+    }
+
+    @Override
+    public boolean clipRect(RectF rect, Region.Op op) {
+        return clipRect(rect.left, rect.top, rect.right, rect.bottom, op);
+    }
+
+    @Override
+    public boolean clipRect(Rect rect, Region.Op op) {
+        return clipRect(rect.left, rect.top, rect.right, rect.bottom, op);
+    }
+
+    @Override
+    public boolean clipRect(float left, float top, float right, float bottom) {
+        displayList.record(DisplayList.OP_CLIP, 0);
+        boolean result = super.clipRect(left, top, right, bottom);
+        return target != null ? target.clipRect(left, top, right, bottom) : result;
+    }
+
+    @Override
+    public boolean clipRect(int left, int top, int right, int bottom) {
+        return clipRect((float) left, (float) top, (float) right, (float) bottom);
+    }
+
+    @Override
+    public boolean clipRect(RectF rect) {
+        return clipRect(rect.left, rect.top, rect.right, rect.bottom);
+    }
+
+    @Override
+    public boolean clipRect(Rect rect) {
+        return clipRect(rect.left, rect.top, rect.right, rect.bottom);
+    }
+
+    @Override
+    public boolean clipPath(Path path, Region.Op op) {
+        displayList.record(DisplayList.OP_CLIP, 0);
+        boolean result = super.clipPath(path, op);
+        return target != null ? target.clipPath(path, op) : result;
+    }
+
+    @Override
+    public boolean clipPath(Path path) {
+        displayList.record(DisplayList.OP_CLIP, 0);
+        boolean result = super.clipPath(path);
+        return target != null ? target.clipPath(path) : result;
+    }
+
+    @SuppressWarnings("deprecation")
+    @Override
+    public boolean clipRegion(Region region, Region.Op op) {
+        displayList.record(DisplayList.OP_CLIP, 0);
+        boolean result = super.clipRegion(region, op);
+        return target != null ? target.clipRegion(region, op) : result;
+    }
+
+    @SuppressWarnings("deprecation")
+    @Override
+    public boolean clipRegion(Region region) {
+        displayList.record(DisplayList.OP_CLIP, 0);
+        boolean result = super.clipRegion(region);
+        return target != null ? target.clipRegion(region) : result;
+    }
+
+    //***********************绘制**************************
+
+    @Override
+    public void drawColor(int color) {
+        displayList.record(DisplayList.OP_DRAW_COLOR, 0);
+        if (target != null) {
+            target.drawColor(color);
+        }
+    }
+
+    @Override
+    public void drawColor(int color, PorterDuff.Mode mode) {
+        displayList.record(DisplayList.OP_DRAW_COLOR, 0);
+        if (target != null) {
+            target.drawColor(color, mode);
+        }
+    }
+
+    @Override
+    public void drawRGB(int r, int g, int b) {
+        displayList.record(DisplayList.OP_DRAW_COLOR, 0);
+        if (target != null) {
+            target.drawRGB(r, g, b);
+        }
+    }
+
+    @Override
+    public void drawARGB(int a, int r, int g, int b) {
+        displayList.record(DisplayList.OP_DRAW_COLOR, 0);
+        if (target != null) {
+            target.drawARGB(a, r, g, b);
+        }
+    }
+
+    @Override
+    public void drawPaint(Paint paint) {
+        displayList.record(DisplayList.OP_DRAW_COLOR, 0);
+        if (target != null) {
+            target.drawPaint(paint);
+        }
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, float left, float top, Paint paint) {
+        displayList.recordBitmap(bitmap.getWidth(), bitmap.getHeight());
+        if (target != null) {
+            target.drawBitmap(bitmap, left, top, paint);
+        }
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, Matrix matrix, Paint paint) {
+        displayList.recordBitmap(bitmap.getWidth(), bitmap.getHeight());
+        if (target != null) {
+            target.drawBitmap(bitmap, matrix, paint);
+        }
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, Rect src, RectF dst, Paint paint) {
+        displayList.recordBitmap(src != null ? src.width() : bitmap.getWidth(), src != null ? src.height() : bitmap.getHeight());
+        if (target != null) {
+            target.drawBitmap(bitmap, src, dst, paint);
+        }
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, Rect src, Rect dst, Paint paint) {
+        displayList.recordBitmap(src != null ? src.width() : bitmap.getWidth(), src != null ? src.height() : bitmap.getHeight());
+        if (target != null) {
+            target.drawBitmap(bitmap, src, dst, paint);
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    @Override
+    public void drawBitmap(int[] colors, int offset, int stride, float x, float y, int width, int height, boolean hasAlpha, Paint paint) {
+        displayList.recordBitmap(width, height);
+        if (target != null) {
+            target.drawBitmap(colors, offset, stride, x, y, width, height, hasAlpha, paint);
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    @Override
+    public void drawBitmap(int[] colors, int offset, int stride, int x, int y, int width, int height, boolean hasAlpha, Paint paint) {
+        displayList.recordBitmap(width, height);
+        if (target != null) {
+            target.drawBitmap(colors, offset, stride, x, y, width, height, hasAlpha, paint);
+        }
+    }
+
+    @Override
+    public void drawBitmapMesh(Bitmap bitmap, int meshWidth, int meshHeight, float[] verts, int vertOffset,
+                               int[] colors, int colorOffset, Paint paint) {
+        displayList.recordBitmap(bitmap.getWidth(), bitmap.getHeight());
+        if (target != null) {
+            target.drawBitmapMesh(bitmap, meshWidth, meshHeight, verts, vertOffset, colors, colorOffset, paint);
+        }
+    }
+
+    @Override
+    public void drawVertices(VertexMode mode, int vertexCount, float[] verts, int vertOffset, float[] texs, int texOffset,
+                             int[] colors, int colorOffset, short[] indices, int indexOffset, int indexCount, Paint paint) {
+        displayList.record(DisplayList.OP_DRAW_OTHER, vertexCount / 2);
+        if (target != null) {
+            target.drawVertices(mode, vertexCount, verts, vertOffset, texs, texOffset, colors, colorOffset,
+                    indices, indexOffset, indexCount, paint);
+        }
+    }
+
+    @Override
+    public void drawPoints(float[] pts, int offset, int count, Paint paint) {
+        displayList.record(DisplayList.OP_DRAW_POINTS, count / 2);
+        if (target != null) {
+            target.drawPoints(pts, offset, count, paint);
+        }
+    }
+
+    @Override
+    public void drawPoints(float[] pts, Paint paint) {
+        drawPoints(pts, 0, pts.length, paint);
+    }
+
+    @Override
+    public void drawPoint(float x, float y, Paint paint) {
+        displayList.record(DisplayList.OP_DRAW_POINTS, 1);
+        if (target != null) {
+            target.drawPoint(x, y, paint);
+        }
+    }
+
+    @Override
+    public void drawLines(float[] pts, int offset, int count, Paint paint) {
+        displayList.record(DisplayList.OP_DRAW_LINES, count / 2);
+        if (target != null) {
+            target.drawLines(pts, offset, count, paint);
+        }
+    }
+
+    @Override
+    public void drawLines(float[] pts, Paint paint) {
+        drawLines(pts, 0, pts.length, paint);
+    }
+
+    @Override
+    public void drawLine(float startX, float startY, float stopX, float stopY, Paint paint) {
+        displayList.record(DisplayList.OP_DRAW_LINES, 2);
+        if (target != null) {
+            target.drawLine(startX, startY, stopX, stopY, paint);
+        }
+    }
+
+    @Override
+    public void drawRect(float left, float top, float right, float bottom, Paint paint) {
+        displayList.record(DisplayList.OP_DRAW_RECT, 4);
+        if (target != null) {
+            target.drawRect(left, top, right, bottom, paint);
+        }
+    }
+
+    @Override
+    public void drawRect(RectF rect, Paint paint) {
+        drawRect(rect.left, rect.top, rect.right, rect.bottom, paint);
+    }
+
+    @Override
+    public void drawRect(Rect r, Paint paint) {
+        drawRect(r.left, r.top, r.right, r.bottom, paint);
+    }
+
+    @Override
+    public void drawCircle(float cx, float cy, float radius, Paint paint) {
+        displayList.record(DisplayList.OP_DRAW_CIRCLE, 1);
+        if (target != null) {
+            target.drawCircle(cx, cy, radius, paint);
+        }
+    }
+
+    @Override
+    public void drawOval(RectF oval, Paint paint) {
+        displayList.record(DisplayList.OP_DRAW_OTHER, 4);
+        if (target != null) {
+            target.drawOval(oval, paint);
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    @Override
+    public void drawOval(float left, float top, float right, float bottom, Paint paint) {
+        displayList.record(DisplayList.OP_DRAW_OTHER, 4);
+        if (target != null) {
+            target.drawOval(left, top, right, bottom, paint);
+        }
+    }
+
+    @Override
+    public void drawArc(RectF oval, float startAngle, float sweepAngle, boolean useCenter, Paint paint) {
+        displayList.record(DisplayList.OP_DRAW_OTHER, 4);
+        if (target != null) {
+            target.drawArc(oval, startAngle, sweepAngle, useCenter, paint);
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    @Override
+    public void drawArc(float left, float top, float right, float bottom, float startAngle, float sweepAngle,
+                        boolean useCenter, Paint paint) {
+        displayList.record(DisplayList.OP_DRAW_OTHER, 4);
+        if (target != null) {
+            target.drawArc(left, top, right, bottom, startAngle, sweepAngle, useCenter, paint);
+        }
+    }
+
+    @Override
+    public void drawRoundRect(RectF rect, float rx, float ry, Paint paint) {
+        displayList.record(DisplayList.OP_DRAW_OTHER, 4);
+        if (target != null) {
+            target.drawRoundRect(rect, rx, ry, paint);
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    @Override
+    public void drawRoundRect(float left, float top, float right, float bottom, float rx, float ry, Paint paint) {
+        displayList.record(DisplayList.OP_DRAW_OTHER, 4);
+        if (target != null) {
+            target.drawRoundRect(left, top, right, bottom, rx, ry, paint);
+        }
+    }
+
+    @Override
+    public void drawPath(Path path, Paint paint) {
+        displayList.record(DisplayList.OP_DRAW_PATH, 0);
+        if (target != null) {
+            target.drawPath(path, paint);
+        }
+    }
+
+    @Override
+    public void drawText(String text, float x, float y, Paint paint) {
+        displayList.record(DisplayList.OP_DRAW_TEXT, text.length());
+        if (target != null) {
+            target.drawText(text, x, y, paint);
+        }
+    }
+
+    @Override
+    public void drawText(char[] text, int index, int count, float x, float y, Paint paint) {
+        displayList.record(DisplayList.OP_DRAW_TEXT, count);
+        if (target != null) {
+            target.drawText(text, index, count, x, y, paint);
+        }
+    }
+
+    @Override
+    public void drawText(String text, int start, int end, float x, float y, Paint paint) {
+        displayList.record(DisplayList.OP_DRAW_TEXT, end - start);
+        if (target != null) {
+            target.drawText(text, start, end, x, y, paint);
+        }
+    }
+
+    @Override
+    public void drawText(CharSequence text, int start, int end, float x, float y, Paint paint) {
+        displayList.record(DisplayList.OP_DRAW_TEXT, end - start);
+        if (target != null) {
+            target.drawText(text, start, end, x, y, paint);
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.M)
+    @Override
+    public void drawTextRun(char[] text, int index, int count, int contextIndex, int contextCount, float x, float y,
+                            boolean isRtl, Paint paint) {
+        displayList.record(DisplayList.OP_DRAW_TEXT, count);
+        if (target != null) {
+            target.drawTextRun(text, index, count, contextIndex, contextCount, x, y, isRtl, paint);
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.M)
+    @Override
+    public void drawTextRun(CharSequence text, int start, int end, int contextStart, int contextEnd, float x, float y,
+                            boolean isRtl, Paint paint) {
+        displayList.record(DisplayList.OP_DRAW_TEXT, end - start);
+        if (target != null) {
+            target.drawTextRun(text, start, end, contextStart, contextEnd, x, y, isRtl, paint);
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    @Override
+    public void drawPosText(char[] text, int index, int count, float[] pos, Paint paint) {
+        displayList.record(DisplayList.OP_DRAW_TEXT, count);
+        if (target != null) {
+            target.drawPosText(text, index, count, pos, paint);
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    @Override
+    public void drawPosText(String text, float[] pos, Paint paint) {
+        displayList.record(DisplayList.OP_DRAW_TEXT, text.length());
+        if (target != null) {
+            target.drawPosText(text, pos, paint);
+        }
+    }
+
+    @Override
+    public void drawTextOnPath(char[] text, int index, int count, Path path, float hOffset, float vOffset, Paint paint) {
+        displayList.record(DisplayList.OP_DRAW_TEXT, count);
+        if (target != null) {
+            target.drawTextOnPath(text, index, count, path, hOffset, vOffset, paint);
+        }
+    }
+
+    @Override
+    public void drawTextOnPath(String text, Path path, float hOffset, float vOffset, Paint paint) {
+        displayList.record(DisplayList.OP_DRAW_TEXT, text.length());
+        if (target != null) {
+            target.drawTextOnPath(text, path, hOffset, vOffset, paint);
+        }
+    }
+
+    @Override
+    public void drawPicture(Picture picture) {
+        displayList.record(DisplayList.OP_DRAW_PICTURE, 0);
+        if (target != null) {
+            target.drawPicture(picture);
+        }
+    }
+
+    @Override
+    public void drawPicture(Picture picture, RectF dst) {
+        displayList.record(DisplayList.OP_DRAW_PICTURE, 0);
+        if (target != null) {
+            target.drawPicture(picture, dst);
+        }
+    }
+
+    @Override
+    public void drawPicture(Picture picture, Rect dst) {
+        displayList.record(DisplayList.OP_DRAW_PICTURE, 0);
+        if (target != null) {
+            target.drawPicture(picture, dst);
+        }
+    }
+}
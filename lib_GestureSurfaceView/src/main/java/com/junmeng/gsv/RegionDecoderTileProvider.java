@@ -0,0 +1,68 @@
+package com.junmeng.gsv;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Rect;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 基于BitmapRegionDecoder的瓦片提供者，只解码需要显示的区域
+ * 解码与释放互斥，避免在解码过程中回收decoder，释放由TiledMapLayer在后台线程中进行，不会阻塞UI线程
+ */
+
+public class RegionDecoderTileProvider implements MapTileProvider {
+
+    private final BitmapRegionDecoder decoder;
+    private Bitmap.Config config = Bitmap.Config.RGB_565;//地图一般不需要透明度，默认使用RGB_565减少内存
+
+    public RegionDecoderTileProvider(String pathName) throws IOException {
+        decoder = BitmapRegionDecoder.newInstance(pathName, false);
+    }
+
+    public RegionDecoderTileProvider(InputStream is) throws IOException {
+        decoder = BitmapRegionDecoder.newInstance(is, false);
+    }
+
+    /**
+     * 设置解码瓦片使用的位图格式，默认RGB_565
+     *
+     * @param config
+     */
+    public void setBitmapConfig(Bitmap.Config config) {
+        this.config = config;
+    }
+
+    @Override
+    public int getMapWidth() {
+        return decoder.getWidth();
+    }
+
+    @Override
+    public int getMapHeight() {
+        return decoder.getHeight();
+    }
+
+    @Override
+    public synchronized Bitmap decodeTile(Rect region, int sampleSize) {
+        if (decoder.isRecycled()) {
+            return null;
+        }
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = sampleSize;
+        options.inPreferredConfig = config;
+        try {
+            return decoder.decodeRegion(region, options);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    @Override
+    public synchronized void release() {
+        decoder.recycle();
+    }
+}
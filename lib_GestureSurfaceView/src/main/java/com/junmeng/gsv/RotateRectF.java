@@ -4,14 +4,20 @@ import android.graphics.PointF;
 import android.graphics.Rect;
 import android.graphics.RectF;
 
+import com.junmeng.gsv.geometry.RotatedRect;
+
 
 /**
  * 带旋转角度的矩形
+ * 旋转相关的计算委托给{@link RotatedRect}，中心点、三角函数值和四个角点只有旋转角度或边界变化后才重新计算
  */
 public class RotateRectF extends RectF {
 
     private float rotate = 0;
 
+    //RectF的边界是公开字段，每次使用前同步给shape，shape内部比较边界判断缓存是否失效
+    private final RotatedRect shape = new RotatedRect();
+
     public RotateRectF() {
         super();
     }
@@ -59,15 +65,14 @@ public class RotateRectF extends RectF {
         return this.rotate;
     }
 
+    private RotatedRect ensureCache() {
+        shape.set(left, top, right, bottom, rotate);
+        return shape;
+    }
+
     @Override
     public boolean contains(float x, float y) {
-        float angle = rotate % 360;
-        if (angle < 0.000005 && angle > -0.000005) {
-            return super.contains(x, y);
-        }
-        PointF p = CalculateUtil.getPointAfterRotate(new PointF(x, y), getCenterPointF(), -angle);
-        return super.contains(p.x, p.y);
-
+        return ensureCache().contains(x, y);
     }
 
     /**
@@ -94,10 +99,8 @@ public class RotateRectF extends RectF {
      * @return
      */
     public PointF getCenterPointF() {
-        PointF p = new PointF();
-        p.x = left + getWidth() / 2.0f;
-        p.y = top + getHeight() / 2.0f;
-        return p;
+        RotatedRect r = ensureCache();
+        return new PointF(r.getCenterX(), r.getCenterY());
     }
 
     /**
@@ -106,43 +109,67 @@ public class RotateRectF extends RectF {
      * @return
      */
     public PointF getLeftTopPoint() {
-
-        PointF p = CalculateUtil.getPointAfterRotate(new PointF(left, top), getCenterPointF(), this.rotate);
-        return p;
+        return getLeftTopPoint(new PointF());
     }
 
     public PointF getLeftDownPoint() {
-
-        PointF p = CalculateUtil.getPointAfterRotate(new PointF(left, bottom), getCenterPointF(), rotate);
-        return p;
+        return getLeftDownPoint(new PointF());
     }
 
     public PointF getRightTopPoint() {
-
-        PointF p = CalculateUtil.getPointAfterRotate(new PointF(right, top), getCenterPointF(), rotate);
-        return p;
+        return getRightTopPoint(new PointF());
     }
 
     public PointF getRightDownPoint() {
+        return getRightDownPoint(new PointF());
+    }
+
+    /**
+     * 获得矩形左上点坐标，结果写入out
+     *
+     * @param out
+     * @return out
+     */
+    public PointF getLeftTopPoint(PointF out) {
+        return getCorner(0, out);
+    }
+
+    public PointF getRightTopPoint(PointF out) {
+        return getCorner(1, out);
+    }
+
+    public PointF getRightDownPoint(PointF out) {
+        return getCorner(2, out);
+    }
+
+    public PointF getLeftDownPoint(PointF out) {
+        return getCorner(3, out);
+    }
+
+    /**
+     * 获得旋转后的四个角点
+     *
+     * @param out 长度至少为8，依次为左上、右上、右下、左下的x,y
+     * @return out
+     */
+    public float[] getCorners(float[] out) {
+        return ensureCache().getCorners(out);
+    }
 
-        PointF p = CalculateUtil.getPointAfterRotate(new PointF(right, bottom), getCenterPointF(), rotate);
-        return p;
+    private PointF getCorner(int i, PointF out) {
+        RotatedRect r = ensureCache();
+        out.set(r.getCornerX(i), r.getCornerY(i));
+        return out;
     }
 
 
     @Override
     public boolean contains(float left, float top, float right, float bottom) {
-        float angle = rotate % 360;
-        if (angle < 0.000005 && angle > -0.000005) {
-            return super.contains(left, top, right, bottom);
-        }
-        PointF p =CalculateUtil. getPointAfterRotate(new PointF(left, top), getCenterPointF(), -angle);
-        PointF p2 = CalculateUtil.getPointAfterRotate(new PointF(right, bottom), getCenterPointF(), -angle);
-        return super.contains(p.x, p.y, p2.x, p2.y);
+        return ensureCache().contains(left, top, right, bottom);
     }
 
     @Override
     public boolean contains(RectF r) {
         return contains(r.left, r.top, r.right, r.bottom);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,196 @@
+package com.junmeng.gsv;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 共享绘制调度器，多个view共用一个帧节拍线程和一个固定大小的绘制线程池
+ * 每个节拍(默认跟随垂直同步信号)检查所有已注册的view，把需要重绘的view分发到线程池绘制
+ * 每次从不同的view开始分发，上一帧还没画完的view本节拍跳过，慢的view不会拖慢其他view
+ * 无论同时显示多少个view，线程数和每帧的唤醒次数都保持不变
+ * 绘制线程是守护线程，空闲一段时间(如最后一个view注销后)会自动结束，下次分发时再创建
+ * <p>
+ * 通过{@link BaseSurfaceView#setSharedRenderScheduler(SharedRenderScheduler)}使用，使用后view的帧率和帧节奏设置不再生效，由调度器统一控制
+ */
+
+public final class SharedRenderScheduler {
+
+    private static final String TAG = "SharedRenderScheduler";
+    private static final long IDLE_TIMEOUT_SECONDS = 10;//绘制线程空闲多久后结束
+
+    private static SharedRenderScheduler defaultScheduler;
+
+    private final Object lock = new Object();
+    private final CopyOnWriteArrayList<BaseSurfaceView> views = new CopyOnWriteArrayList<>();
+    private final FrameScheduler frameScheduler = new FrameScheduler(60);
+    private final ThreadPoolExecutor pool;
+    private final int threadCount;
+    private Thread tickThread;
+    private boolean isFrameRequested = false;//由lock保护
+    private int cursor = 0;//下一个节拍从哪个view开始分发，只在节拍线程中使用
+
+    /**
+     * @param threadCount 绘制线程数
+     */
+    public SharedRenderScheduler(int threadCount) {
+        this.threadCount = Math.max(1, threadCount);
+        final AtomicInteger index = new AtomicInteger();
+        pool = new ThreadPoolExecutor(this.threadCount, this.threadCount, IDLE_TIMEOUT_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, TAG + "-" + index.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        pool.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * 获得默认的共享调度器，线程数等于CPU核数
+     *
+     * @return
+     */
+    public static synchronized SharedRenderScheduler getDefault() {
+        if (defaultScheduler == null) {
+            defaultScheduler = new SharedRenderScheduler(Runtime.getRuntime().availableProcessors());
+        }
+        return defaultScheduler;
+    }
+
+    /**
+     * 设置目标帧率，默认60帧
+     *
+     * @param fps 小于等于0表示不限制帧率
+     */
+    public void setTargetFrameRate(int fps) {
+        frameScheduler.setTargetFrameRate(fps);
+    }
+
+    public int getTargetFrameRate() {
+        return frameScheduler.getTargetFrameRate();
+    }
+
+    /**
+     * 设置帧节奏，默认FRAME_PACING_VSYNC
+     *
+     * @param pacing
+     */
+    public void setFramePacing(@BaseSurfaceView.FramePacing int pacing) {
+        frameScheduler.setVsyncEnabled(pacing == BaseSurfaceView.FRAME_PACING_VSYNC);
+    }
+
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    long getFrameIntervalNanos() {
+        return frameScheduler.getFrameIntervalNanos();
+    }
+
+    long getLastFrameTimeNanos() {
+        return frameScheduler.getLastFrameTimeNanos();
+    }
+
+    /**
+     * 注册view，Surface创建后调用，第一个view注册时启动节拍线程
+     *
+     * @param view
+     */
+    void register(BaseSurfaceView view) {
+        if (!views.addIfAbsent(view)) {
+            return;
+        }
+        synchronized (lock) {
+            if (tickThread == null) {
+                frameScheduler.reset();
+                tickThread = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        tickLoop(Thread.currentThread());
+                    }
+                }, TAG + "-tick");
+                tickThread.start();
+            }
+        }
+        requestFrame();
+    }
+
+    /**
+     * 注销view，Surface销毁时调用，最后一个view注销时结束节拍线程
+     *
+     * @param view
+     */
+    void unregister(BaseSurfaceView view) {
+        views.remove(view);
+        synchronized (lock) {
+            if (views.isEmpty() && tickThread != null) {
+                tickThread = null;
+                lock.notifyAll();
+                frameScheduler.release();
+            }
+        }
+    }
+
+    /**
+     * 有view需要重绘，唤醒节拍线程，可在任意线程调用
+     */
+    void requestFrame() {
+        synchronized (lock) {
+            isFrameRequested = true;
+            lock.notifyAll();
+        }
+    }
+
+    private void tickLoop(Thread thread) {
+        try {
+            while (true) {
+                synchronized (lock) {
+                    while (tickThread == thread && !isFrameRequested) {
+                        lock.wait();
+                    }
+                    if (tickThread != thread) {
+                        return;
+                    }
+                    isFrameRequested = false;
+                }
+                frameScheduler.awaitNextFrame();
+                if (dispatchFrame()) {
+                    requestFrame();
+                }
+            }
+        } catch (InterruptedException e) {
+            //退出
+        }
+    }
+
+    /**
+     * 把需要重绘的view分发到线程池
+     *
+     * @return 是否还有view需要下一帧(连续绘制或上一帧未完成)
+     */
+    private boolean dispatchFrame() {
+        Object[] snapshot = views.toArray();
+        int count = snapshot.length;
+        if (count == 0) {
+            return false;
+        }
+        boolean isPending = false;
+        int start = cursor++ % count;
+        for (int i = 0; i < count; i++) {
+            BaseSurfaceView view = (BaseSurfaceView) snapshot[(start + i) % count];
+            if (view.beginSharedFrame()) {
+                pool.execute(view.sharedFrameTask);
+                isPending |= view.getRenderMode() == BaseSurfaceView.RENDER_MODE_CONTINUOUSLY;
+            } else {
+                isPending |= view.isFrameRequested();
+            }
+        }
+        return isPending;
+    }
+}
@@ -0,0 +1,249 @@
+package com.junmeng.gsv;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.os.Process;
+import android.util.LruCache;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 瓦片地图图层，根据当前地图矩阵只解码和绘制视口内可见的瓦片
+ * 瓦片按缩放级别(采样率)划分，解码在后台线程进行，缓存大小按字节数限制
+ * 瓦片未解码完成时优先用已缓存的低分辨率瓦片代替，否则绘制占位色块
+ */
+
+class TiledMapLayer {
+
+    private static final String TAG = "TiledMapLayer";
+
+    static final int TILE_SIZE = 256;//瓦片在解码后的边长
+    private static final int FALLBACK_LEVELS = 3;//最多向上查找几级低分辨率瓦片代替
+
+    private final MapTileProvider provider;
+    private final Runnable onTileLoaded;//瓦片解码完成后的回调
+    private final int mapWidth, mapHeight;
+    private final int maxLevel;
+
+    private final LruCache<Long, Bitmap> cache;
+    private final ExecutorService executor;
+    private final Set<Long> pending = Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
+
+    //当前帧需要的瓦片范围，后台线程据此丢弃已经移出视口的解码请求
+    private volatile int wantedLevel = -1;
+    private volatile int wantedLeft, wantedTop, wantedRight, wantedBottom;
+    private volatile boolean isReleased = false;
+
+    private final Matrix inverse = new Matrix();
+    private final RectF visible = new RectF();
+    private final RectF dst = new RectF();
+    private final Rect src = new Rect();
+    private final Paint bitmapPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private final Paint placeholderPaint = new Paint();
+
+    TiledMapLayer(MapTileProvider provider, int cacheBytes, Runnable onTileLoaded) {
+        this.provider = provider;
+        this.onTileLoaded = onTileLoaded;
+        this.mapWidth = provider.getMapWidth();
+        this.mapHeight = provider.getMapHeight();
+        int level = 0;
+        while ((TILE_SIZE << level) < Math.max(mapWidth, mapHeight)) {
+            level++;
+        }
+        this.maxLevel = level;
+        placeholderPaint.setColor(Color.LTGRAY);
+        placeholderPaint.setStyle(Paint.Style.FILL);
+        cache = new LruCache<Long, Bitmap>(cacheBytes) {
+            @Override
+            protected int sizeOf(Long key, Bitmap value) {
+                return value.getRowBytes() * value.getHeight();
+            }
+        };
+        executor = Executors.newFixedThreadPool(2, new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable r) {
+                Thread t = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                        r.run();
+                    }
+                }, TAG);
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
+    int getMapWidth() {
+        return mapWidth;
+    }
+
+    int getMapHeight() {
+        return mapHeight;
+    }
+
+    /**
+     * 根据地图缩放比例选择瓦片级别，级别n对应采样率2^n
+     *
+     * @param scale
+     * @return
+     */
+    int levelForScale(float scale) {
+        int level = 0;
+        while (level < maxLevel && scale * (1 << (level + 1)) <= 1.0f) {
+            level++;
+        }
+        return level;
+    }
+
+    /**
+     * 绘制视口内的瓦片
+     *
+     * @param c
+     * @param matrix 原图坐标到屏幕坐标的矩阵
+     * @param scale  当前缩放比例
+     * @param viewWidth
+     * @param viewHeight
+     */
+    void draw(Canvas c, Matrix matrix, float scale, int viewWidth, int viewHeight) {
+        if (isReleased || !matrix.invert(inverse)) {
+            return;
+        }
+        visible.set(0, 0, viewWidth, viewHeight);
+        inverse.mapRect(visible);
+        if (!visible.intersect(0, 0, mapWidth, mapHeight)) {
+            return;
+        }
+        int level = levelForScale(scale);
+        int tileMapSize = TILE_SIZE << level;//瓦片在原图上覆盖的边长
+        int left = (int) (visible.left / tileMapSize);
+        int top = (int) (visible.top / tileMapSize);
+        int right = (int) Math.ceil(visible.right / tileMapSize) - 1;
+        int bottom = (int) Math.ceil(visible.bottom / tileMapSize) - 1;
+        wantedLeft = left;
+        wantedTop = top;
+        wantedRight = right;
+        wantedBottom = bottom;
+        wantedLevel = level;
+
+        c.save();
+        c.concat(matrix);
+        for (int row = top; row <= bottom; row++) {
+            for (int col = left; col <= right; col++) {
+                setTileRect(dst, level, col, row);
+                Bitmap tile = cache.get(key(level, col, row));
+                if (tile != null) {
+                    c.drawBitmap(tile, null, dst, bitmapPaint);
+                } else {
+                    if (!drawFallback(c, level, col, row)) {
+                        c.drawRect(dst, placeholderPaint);
+                    }
+                    requestTile(level, col, row);
+                }
+            }
+        }
+        c.restore();
+    }
+
+    /**
+     * 用已缓存的低分辨率瓦片代替尚未解码的瓦片
+     */
+    private boolean drawFallback(Canvas c, int level, int col, int row) {
+        for (int l = level + 1; l <= Math.min(maxLevel, level + FALLBACK_LEVELS); l++) {
+            int shift = l - level;
+            int pc = col >> shift;
+            int pr = row >> shift;
+            Bitmap parent = cache.get(key(l, pc, pr));
+            if (parent == null) {
+                continue;
+            }
+            int sample = 1 << l;
+            int parentLeft = pc * (TILE_SIZE << l);
+            int parentTop = pr * (TILE_SIZE << l);
+            src.set((int) ((dst.left - parentLeft) / sample), (int) ((dst.top - parentTop) / sample),
+                    (int) Math.ceil((dst.right - parentLeft) / sample), (int) Math.ceil((dst.bottom - parentTop) / sample));
+            c.drawBitmap(parent, src, dst, bitmapPaint);
+            return true;
+        }
+        return false;
+    }
+
+    private void setTileRect(RectF out, int level, int col, int row) {
+        int size = TILE_SIZE << level;
+        out.set(col * size, row * size, Math.min((col + 1) * size, mapWidth), Math.min((row + 1) * size, mapHeight));
+    }
+
+    private void requestTile(final int level, final int col, final int row) {
+        if (isReleased) {
+            return;
+        }
+        final Long key = key(level, col, row);
+        if (!pending.add(key)) {
+            return;
+        }
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        if (isReleased || !isWanted(level, col, row)) {
+                            return;
+                        }
+                        int size = TILE_SIZE << level;
+                        Rect region = new Rect(col * size, row * size, Math.min((col + 1) * size, mapWidth), Math.min((row + 1) * size, mapHeight));
+                        Bitmap tile = provider.decodeTile(region, 1 << level);
+                        if (tile != null && !isReleased) {
+                            cache.put(key, tile);
+                            onTileLoaded.run();
+                        }
+                    } finally {
+                        pending.remove(key);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            //与release并发时线程池可能已经关闭
+            pending.remove(key);
+        }
+    }
+
+    private boolean isWanted(int level, int col, int row) {
+        return level == wantedLevel && col >= wantedLeft && col <= wantedRight && row >= wantedTop && row <= wantedBottom;
+    }
+
+    private static Long key(int level, int col, int row) {
+        return ((long) level << 48) | ((long) row << 24) | col;
+    }
+
+    /**
+     * 释放图层，停止后台解码并清空缓存
+     * 提供者在后台线程中释放，不等待正在进行的解码，排队的解码请求会直接返回
+     */
+    void release() {
+        isReleased = true;
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    provider.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            //已经释放过
+        }
+        executor.shutdown();
+        cache.evictAll();
+    }
+}
@@ -0,0 +1,53 @@
+package com.junmeng.gsv;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 无锁的三缓冲，用于一个写线程向一个读线程发布状态
+ * 写线程填充后台缓冲后发布，读线程每次取到的都是最新发布的完整数据，双方都不会阻塞
+ */
+
+class TripleBuffer<T> {
+
+    private static final int INDEX_MASK = 3;
+    private static final int FRESH = 4;//中间缓冲是否有未读取的新数据
+
+    private final Object[] slots;
+    private final AtomicInteger middle = new AtomicInteger(1);//中间缓冲的序号及FRESH标志
+    private int back = 2;//写线程独占
+    private int front = 0;//读线程独占
+
+    TripleBuffer(T a, T b, T c) {
+        slots = new Object[]{a, b, c};
+    }
+
+    /**
+     * 写线程获得可写入的后台缓冲
+     *
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    T getBack() {
+        return (T) slots[back];
+    }
+
+    /**
+     * 写线程发布后台缓冲，并换回一个空闲缓冲
+     */
+    void publish() {
+        back = middle.getAndSet(back | FRESH) & INDEX_MASK;
+    }
+
+    /**
+     * 读线程获得最新发布的数据，没有新数据时返回上一次的数据
+     *
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    T acquire() {
+        if ((middle.get() & FRESH) != 0) {
+            front = middle.getAndSet(front) & INDEX_MASK;
+        }
+        return (T) slots[front];
+    }
+}
@@ -0,0 +1,197 @@
+package com.junmeng.gsv;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+
+import com.junmeng.gsv.geometry.DisplayList;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Random;
+
+/**
+ * 绘制基准场景，在指定画面大小下向GestureSurfaceView添加N个点和若干地图图层，不经过Surface连续绘制若干帧
+ * 统计每帧的绘制命令数、顶点数、位图绘制次数、内存分配量和耗时，可在测试中断言每帧的绘制和分配预算
+ * 会修改view的画面大小、添加点、图层和旋转角度，且不能在绘制线程运行时使用
+ * <p>
+ * 内存分配量通过HotSpot的线程分配字节数统计，包含Robolectric影子类的分配，适合比较不同场景或版本，不是设备上的绝对值
+ */
+
+public class RenderScenario {
+
+    public static class Result {
+        public int frames;
+        public int drawCallsPerFrame;//最后一帧的绘制命令数
+        public long verticesPerFrame;
+        public int bitmapDrawsPerFrame;
+        public long allocatedBytesPerFrame = -1;//平均每帧分配的字节数，没有统计时为-1
+        public long nanosPerFrame;//平均每帧的耗时
+        public DisplayList lastFrame;//最后一帧的绘制命令
+
+        @Override
+        public String toString() {
+            return "RenderScenario.Result{frames=" + frames + ", drawCalls=" + drawCallsPerFrame + ", vertices=" + verticesPerFrame
+                    + ", bitmapDraws=" + bitmapDrawsPerFrame + ", allocatedBytes=" + allocatedBytesPerFrame + ", nanos=" + nanosPerFrame + "}";
+        }
+    }
+
+    private final GestureSurfaceView view;
+    private int width = 1080, height = 1920;
+    private int pointCount = 0;
+    private int frames = 60;
+    private float rotatePerFrame = 0;//每帧旋转的角度，不为0时每帧的相机都不同，点需要重新投影
+    private int overlayCount = 0;
+    private int shapesPerOverlay = 100;
+    private int overlayCacheMode = MapOverlay.CACHE_MODE_PICTURE;
+    private boolean isInvalidateOverlays = false;//每帧都让图层重新录制
+    private long seed = 1;
+    private boolean isCountAllocations = false;
+
+    public RenderScenario(GestureSurfaceView view) {
+        this.view = view;
+    }
+
+    public void setViewportSize(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * 设置添加的点数，点在地图范围内随机分布
+     */
+    public void setPointCount(int count) {
+        this.pointCount = count;
+    }
+
+    public void setFrames(int frames) {
+        this.frames = frames;
+    }
+
+    public void setRotatePerFrame(float angle) {
+        this.rotatePerFrame = angle;
+    }
+
+    /**
+     * 设置添加的地图图层数，每个图层在地图范围内随机画shapes个圆
+     *
+     * @param count     图层数
+     * @param shapes    每个图层的元素个数
+     * @param cacheMode 如{@link MapOverlay#CACHE_MODE_PICTURE}
+     */
+    public void setOverlays(int count, int shapes, int cacheMode) {
+        this.overlayCount = count;
+        this.shapesPerOverlay = shapes;
+        this.overlayCacheMode = cacheMode;
+    }
+
+    /**
+     * 设置是否每帧都让图层重新录制，模拟图层内容持续变化
+     */
+    public void setInvalidateOverlays(boolean invalidate) {
+        this.isInvalidateOverlays = invalidate;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * 设置是否统计内存分配量，默认不统计，JVM不支持线程分配统计时结果为-1
+     */
+    public void setCountAllocations(boolean count) {
+        this.isCountAllocations = count;
+    }
+
+    public Result run() {
+        view.surfaceChanged(null, 0, width, height);
+        float w = view.srcMapWidth > 0 ? view.srcMapWidth : width;
+        float h = view.srcMapHeight > 0 ? view.srcMapHeight : height;
+        Random random = new Random(seed);
+        if (pointCount > 0) {
+            float[] xy = new float[pointCount * 2];
+            for (int i = 0; i < pointCount; i++) {
+                xy[i * 2] = (random.nextFloat() - 0.5f) * w;
+                xy[i * 2 + 1] = (random.nextFloat() - 0.5f) * h;
+            }
+            view.addPoints(xy, pointCount);
+        }
+        ScenarioOverlay[] overlays = new ScenarioOverlay[overlayCount];
+        for (int i = 0; i < overlayCount; i++) {
+            overlays[i] = new ScenarioOverlay(overlayCacheMode, shapesPerOverlay, w, h, random.nextLong());
+            view.addOverlay(overlays[i]);
+        }
+        DisplayList list = new DisplayList();
+        view.recordFrame(list);//预热，建立索引和缓存
+
+        long startBytes = isCountAllocations ? allocatedBytes() : -1;
+        long start = System.nanoTime();
+        for (int i = 0; i < frames; i++) {
+            if (rotatePerFrame != 0) {
+                view.rotate(rotatePerFrame);
+            }
+            if (isInvalidateOverlays) {
+                for (ScenarioOverlay overlay : overlays) {
+                    overlay.invalidate();
+                }
+            }
+            view.recordFrame(list);
+        }
+        long nanos = System.nanoTime() - start;
+        long endBytes = startBytes >= 0 ? allocatedBytes() : -1;
+
+        Result result = new Result();
+        result.frames = frames;
+        result.drawCallsPerFrame = list.getDrawCallCount();
+        result.verticesPerFrame = list.getVertexCount();
+        result.bitmapDrawsPerFrame = list.getBitmapDrawCount();
+        if (startBytes >= 0 && endBytes >= 0 && frames > 0) {
+            result.allocatedBytesPerFrame = (endBytes - startBytes) / frames;
+        }
+        result.nanosPerFrame = frames > 0 ? nanos / frames : 0;
+        result.lastFrame = list;
+        return result;
+    }
+
+    /**
+     * 获得当前线程累计分配的字节数
+     *
+     * @return 不支持时返回-1
+     */
+    private static long allocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean hotspot = (com.sun.management.ThreadMXBean) bean;
+            if (hotspot.isThreadAllocatedMemorySupported() && hotspot.isThreadAllocatedMemoryEnabled()) {
+                return hotspot.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 场景使用的图层，在地图范围内随机画若干个圆
+     */
+    private static class ScenarioOverlay extends MapOverlay {
+
+        private final float[] xy;
+        private final Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+
+        ScenarioOverlay(int cacheMode, int shapes, float mapWidth, float mapHeight, long seed) {
+            super(cacheMode, 0.5f);
+            Random random = new Random(seed);
+            xy = new float[shapes * 2];
+            for (int i = 0; i < shapes; i++) {
+                xy[i * 2] = (random.nextFloat() - 0.5f) * mapWidth;
+                xy[i * 2 + 1] = (random.nextFloat() - 0.5f) * mapHeight;
+            }
+            paint.setColor(0x8000FF00);
+        }
+
+        @Override
+        protected void onRecord(Canvas c) {
+            for (int i = 0; i < xy.length; i += 2) {
+                c.drawCircle(xy[i], xy[i + 1], 8, paint);
+            }
+        }
+    }
+}
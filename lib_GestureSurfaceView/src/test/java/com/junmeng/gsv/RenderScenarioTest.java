@@ -0,0 +1,146 @@
+package com.junmeng.gsv;
+
+import android.graphics.Bitmap;
+
+import com.junmeng.gsv.geometry.DisplayList;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.*;
+
+/**
+ * 用RenderScenario检查每帧的绘制预算，在JVM上通过Robolectric运行
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class RenderScenarioTest {
+
+    private static final int POINT_COUNT = 10000;
+    private static final int MAX_DRAW_CALLS = 6;//背景、地图、点和中心图标等，与点数无关
+    private static final long IDLE_BYTES_PER_FRAME = 4096;//画面不变时每帧的分配预算，包含Robolectric影子类的分配
+
+    private GestureSurfaceView view;
+
+    @Before
+    public void setUp() {
+        view = new GestureSurfaceView(RuntimeEnvironment.application);
+        view.setMapMipmapEnabled(false);
+        view.setMapBitmap(Bitmap.createBitmap(2000, 2000, Bitmap.Config.ARGB_8888));
+        view.showReference(false);
+    }
+
+    private RenderScenario scenario() {
+        RenderScenario scenario = new RenderScenario(view);
+        scenario.setViewportSize(1080, 1920);
+        scenario.setPointCount(POINT_COUNT);
+        scenario.setFrames(10);
+        return scenario;
+    }
+
+    @Test
+    public void staticFrame_staysWithinBudget() {
+        RenderScenario.Result result = scenario().run();
+        assertEquals(10, result.frames);
+        assertEquals(1, result.bitmapDrawsPerFrame);
+        assertEquals(1, result.lastFrame.getOpCount(DisplayList.OP_DRAW_POINTS));
+        assertTrue(result.toString(), result.drawCallsPerFrame <= MAX_DRAW_CALLS);
+        assertTrue(result.toString(), result.verticesPerFrame > 0);
+        assertTrue(result.toString(), result.verticesPerFrame <= POINT_COUNT + 4 * MAX_DRAW_CALLS);
+    }
+
+    @Test
+    public void rotatingFrame_keepsDrawCallCount() {
+        RenderScenario.Result still = scenario().run();
+
+        setUp();
+        RenderScenario rotating = scenario();
+        rotating.setRotatePerFrame(3);
+        RenderScenario.Result result = rotating.run();
+        assertEquals(still.drawCallsPerFrame, result.drawCallsPerFrame);
+        assertEquals(1, result.bitmapDrawsPerFrame);
+    }
+
+    @Test
+    public void recordFrame_doesNotTurnCallerIntoDrawingThread() {
+        view.surfaceChanged(null, 0, 1080, 1920);
+        view.recordFrame(new DisplayList());
+        long version = view.getCameraVersion();
+        view.rotate(10);
+        //调用线程应读到最新的相机状态，而不是录制时的帧快照
+        assertNotEquals(version, view.getCameraVersion());
+    }
+
+    @Test
+    public void recordFrame_requiresRenderThreadIdle() {
+        view.surfaceChanged(null, 0, 1080, 1920);
+        view.pauseRendering();
+        view.surfaceCreated(view.getHolder());
+        try {
+            //已暂停时可以录制
+            assertTrue(view.recordFrame(new DisplayList()).getDrawCallCount() > 0);
+            view.resumeRendering();
+            try {
+                view.recordFrame(new DisplayList());
+                fail("recordFrame should not run while the render thread is live");
+            } catch (IllegalStateException expected) {
+            }
+        } finally {
+            view.pauseRendering();
+            view.surfaceDestroyed(view.getHolder());
+            view.onDetachedFromWindow();
+        }
+        //Surface销毁后又可以录制
+        assertTrue(view.recordFrame(new DisplayList()).getDrawCallCount() > 0);
+    }
+
+    @Test
+    public void overlays_costOneDrawEach() {
+        RenderScenario.Result base = scenario().run();
+
+        setUp();
+        RenderScenario pictures = scenario();
+        pictures.setOverlays(3, 500, MapOverlay.CACHE_MODE_PICTURE);
+        RenderScenario.Result result = pictures.run();
+        //图层内的元素个数不影响每帧的绘制命令数
+        assertEquals(3, result.lastFrame.getOpCount(DisplayList.OP_DRAW_PICTURE));
+        assertEquals(base.drawCallsPerFrame + 3, result.drawCallsPerFrame);
+
+        setUp();
+        RenderScenario bitmaps = scenario();
+        bitmaps.setOverlays(2, 500, MapOverlay.CACHE_MODE_BITMAP);
+        result = bitmaps.run();
+        assertEquals(base.bitmapDrawsPerFrame + 2, result.bitmapDrawsPerFrame);
+        assertEquals(base.drawCallsPerFrame + 2, result.drawCallsPerFrame);
+    }
+
+    @Test
+    public void allocations_notCountedByDefault() {
+        assertEquals(-1, scenario().run().allocatedBytesPerFrame);
+    }
+
+    @Test
+    public void idleFrames_stayWithinAllocationBudget() {
+        RenderScenario scenario = scenario();
+        scenario.setFrames(50);
+        scenario.setOverlays(3, 500, MapOverlay.CACHE_MODE_PICTURE);
+        scenario.setCountAllocations(true);
+        RenderScenario.Result idle = scenario.run();
+        assertTrue(idle.toString(), idle.allocatedBytesPerFrame >= 0);
+        assertTrue(idle.toString(), idle.allocatedBytesPerFrame <= IDLE_BYTES_PER_FRAME);
+
+        //图层每帧重新录制时分配明显增加，说明统计是有效的
+        setUp();
+        scenario = scenario();
+        scenario.setFrames(50);
+        scenario.setOverlays(3, 500, MapOverlay.CACHE_MODE_PICTURE);
+        scenario.setInvalidateOverlays(true);
+        scenario.setCountAllocations(true);
+        RenderScenario.Result busy = scenario.run();
+        assertTrue(busy.toString(), busy.allocatedBytesPerFrame > IDLE_BYTES_PER_FRAME);
+    }
+}
@@ -0,0 +1,95 @@
+package com.junmeng.gsv.geometry;
+
+/**
+ * 地图相机的变换，即点坐标(以地图中心为原点的原图坐标)与屏幕坐标之间的相似变换
+ * 屏幕坐标 = 地图中心点 + 旋转(缩放后的点坐标)，逆变换直接由公式求出，不需要矩阵求逆
+ */
+
+public class CameraTransform {
+
+    private float centerX, centerY;//地图中心点的屏幕坐标
+    private float scale = 1.0f;
+    private float cos = 1, sin = 0;
+    private float a = 1, b = 0;//a=scale*cos，b=scale*sin
+
+    /**
+     * @param centerX 地图中心点的屏幕坐标
+     * @param centerY
+     * @param scale   缩放比例
+     * @param cos     旋转角度的余弦值
+     * @param sin     旋转角度的正弦值
+     */
+    public void set(float centerX, float centerY, float scale, float cos, float sin) {
+        this.centerX = centerX;
+        this.centerY = centerY;
+        this.scale = scale;
+        this.cos = cos;
+        this.sin = sin;
+        a = scale * cos;
+        b = scale * sin;
+    }
+
+    public void set(CameraTransform o) {
+        set(o.centerX, o.centerY, o.scale, o.cos, o.sin);
+    }
+
+    public boolean isInvertible() {
+        return scale != 0;
+    }
+
+    /**
+     * 点坐标转换为屏幕x坐标
+     */
+    public float toScreenX(float x, float y) {
+        return a * x - b * y + centerX;
+    }
+
+    public float toScreenY(float x, float y) {
+        return b * x + a * y + centerY;
+    }
+
+    /**
+     * 屏幕坐标转换为点坐标的x
+     */
+    public float toMapX(float sx, float sy) {
+        return (a * (sx - centerX) + b * (sy - centerY)) / (scale * scale);
+    }
+
+    public float toMapY(float sx, float sy) {
+        return (-b * (sx - centerX) + a * (sy - centerY)) / (scale * scale);
+    }
+
+    /**
+     * 批量将点坐标转换为屏幕坐标
+     *
+     * @param in  点坐标，x,y交替
+     * @param out 屏幕坐标，可以与in是同一个数组
+     * @param n   点的个数
+     */
+    public void mapToScreen(float[] in, int inOffset, float[] out, int outOffset, int n) {
+        for (int i = 0; i < n; i++) {
+            float x = in[inOffset + i * 2];
+            float y = in[inOffset + i * 2 + 1];
+            out[outOffset + i * 2] = a * x - b * y + centerX;
+            out[outOffset + i * 2 + 1] = b * x + a * y + centerY;
+        }
+    }
+
+    /**
+     * 批量将屏幕坐标转换为点坐标
+     *
+     * @param in  屏幕坐标，x,y交替
+     * @param out 点坐标，可以与in是同一个数组
+     * @param n   点的个数
+     */
+    public void screenToMap(float[] in, int inOffset, float[] out, int outOffset, int n) {
+        float ia = a / (scale * scale);
+        float ib = b / (scale * scale);
+        for (int i = 0; i < n; i++) {
+            float dx = in[inOffset + i * 2] - centerX;
+            float dy = in[inOffset + i * 2 + 1] - centerY;
+            out[outOffset + i * 2] = ia * dx + ib * dy;
+            out[outOffset + i * 2 + 1] = -ib * dx + ia * dy;
+        }
+    }
+}
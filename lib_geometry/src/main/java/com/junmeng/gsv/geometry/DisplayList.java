@@ -0,0 +1,145 @@
+package com.junmeng.gsv.geometry;
+
+import java.util.Arrays;
+
+/**
+ * 一帧绘制命令的紧凑记录，只保存命令类型和统计数据，不保存参数
+ * 用于统计每帧的绘制命令数、顶点数和位图绘制次数，不依赖Android，可在JVM单元测试中断言每帧的绘制预算
+ */
+
+public class DisplayList {
+
+    public static final int OP_SAVE = 0;
+    public static final int OP_RESTORE = 1;
+    public static final int OP_TRANSFORM = 2;//concat、translate、scale、rotate
+    public static final int OP_CLIP = 3;
+    public static final int OP_DRAW_COLOR = 4;
+    public static final int OP_DRAW_BITMAP = 5;
+    public static final int OP_DRAW_POINTS = 6;
+    public static final int OP_DRAW_LINES = 7;
+    public static final int OP_DRAW_RECT = 8;
+    public static final int OP_DRAW_CIRCLE = 9;
+    public static final int OP_DRAW_PATH = 10;
+    public static final int OP_DRAW_TEXT = 11;
+    public static final int OP_DRAW_PICTURE = 12;
+    public static final int OP_DRAW_OTHER = 13;
+
+    public static final int OP_TYPE_COUNT = 14;
+
+    private static final String[] OP_NAMES = {"save", "restore", "transform", "clip", "drawColor", "drawBitmap",
+            "drawPoints", "drawLines", "drawRect", "drawCircle", "drawPath", "drawText", "drawPicture", "drawOther"};
+
+    private byte[] ops = new byte[256];//按顺序记录的命令类型
+    private int size;
+    private final int[] opCounts = new int[OP_TYPE_COUNT];
+    private long vertexCount;//点、线段端点等顶点数
+    private long bitmapPixelCount;//绘制的位图的像素数(按源位图大小)
+
+    /**
+     * 清空记录，开始新的一帧
+     */
+    public void reset() {
+        size = 0;
+        Arrays.fill(opCounts, 0);
+        vertexCount = 0;
+        bitmapPixelCount = 0;
+    }
+
+    /**
+     * 记录一条命令
+     *
+     * @param op       命令类型，如{@link #OP_DRAW_POINTS}
+     * @param vertices 顶点数，没有时为0
+     */
+    public void record(int op, int vertices) {
+        if (size == ops.length) {
+            ops = Arrays.copyOf(ops, size * 2);
+        }
+        ops[size++] = (byte) op;
+        opCounts[op]++;
+        vertexCount += vertices;
+    }
+
+    /**
+     * 记录一次位图绘制
+     *
+     * @param width  位图宽
+     * @param height 位图高
+     */
+    public void recordBitmap(int width, int height) {
+        record(OP_DRAW_BITMAP, 4);
+        bitmapPixelCount += (long) width * height;
+    }
+
+    /**
+     * 获得命令总数(包括save、restore和变换)
+     *
+     * @return
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 获得第i条命令的类型
+     *
+     * @param i
+     * @return
+     */
+    public int getOp(int i) {
+        return ops[i];
+    }
+
+    /**
+     * 获得某种命令的条数
+     *
+     * @param op
+     * @return
+     */
+    public int getOpCount(int op) {
+        return opCounts[op];
+    }
+
+    /**
+     * 获得绘制命令的条数，不包括save、restore、变换和裁剪
+     *
+     * @return
+     */
+    public int getDrawCallCount() {
+        int count = 0;
+        for (int op = OP_DRAW_COLOR; op < OP_TYPE_COUNT; op++) {
+            count += opCounts[op];
+        }
+        return count;
+    }
+
+    public long getVertexCount() {
+        return vertexCount;
+    }
+
+    public int getBitmapDrawCount() {
+        return opCounts[OP_DRAW_BITMAP];
+    }
+
+    public long getBitmapPixelCount() {
+        return bitmapPixelCount;
+    }
+
+    public static String getOpName(int op) {
+        return OP_NAMES[op];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("DisplayList{ops=").append(size)
+                .append(", drawCalls=").append(getDrawCallCount())
+                .append(", vertices=").append(vertexCount)
+                .append(", bitmapPixels=").append(bitmapPixelCount);
+        for (int op = 0; op < OP_TYPE_COUNT; op++) {
+            if (opCounts[op] > 0) {
+                sb.append(", ").append(OP_NAMES[op]).append('=').append(opCounts[op]);
+            }
+        }
+        return sb.append('}').toString();
+    }
+}
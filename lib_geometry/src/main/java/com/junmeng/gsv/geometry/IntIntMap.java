@@ -0,0 +1,78 @@
+package com.junmeng.gsv.geometry;
+
+import java.util.Arrays;
+
+/**
+ * int到int的哈希表，开放寻址，避免装箱，不支持删除
+ */
+
+class IntIntMap {
+
+    private static final int EMPTY = Integer.MIN_VALUE;//不能作为key
+
+    private int[] keys;
+    private int[] values;
+    private int size;
+
+    IntIntMap(int capacity) {
+        int n = Integer.highestOneBit(Math.max(4, capacity * 2) - 1) << 1;
+        keys = new int[n];
+        values = new int[n];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /**
+     * @return key不存在时返回missing
+     */
+    int get(int key, int missing) {
+        int mask = keys.length - 1;
+        for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+            int k = keys[i];
+            if (k == key) {
+                return values[i];
+            }
+            if (k == EMPTY) {
+                return missing;
+            }
+        }
+    }
+
+    void put(int key, int value) {
+        if ((size + 1) * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+        int mask = keys.length - 1;
+        for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+            int k = keys[i];
+            if (k == key) {
+                values[i] = value;
+                return;
+            }
+            if (k == EMPTY) {
+                keys[i] = key;
+                values[i] = value;
+                size++;
+                return;
+            }
+        }
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
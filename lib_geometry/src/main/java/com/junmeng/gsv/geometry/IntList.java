@@ -0,0 +1,74 @@
+package com.junmeng.gsv.geometry;
+
+import java.util.Arrays;
+
+/**
+ * 可增长的int数组，避免装箱
+ */
+
+public class IntList {
+
+    private int[] values;
+    private int size;
+
+    public IntList() {
+        this(16);
+    }
+
+    public IntList(int capacity) {
+        values = new int[Math.max(1, capacity)];
+    }
+
+    public void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+
+    public int get(int i) {
+        return values[i];
+    }
+
+    public void set(int i, int value) {
+        values[i] = value;
+    }
+
+    /**
+     * 查找元素第一次出现的位置
+     *
+     * @return 没有时返回-1
+     */
+    public int indexOf(int value) {
+        for (int i = 0; i < size; i++) {
+            if (values[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 移除最后一个元素
+     *
+     * @return 被移除的元素
+     */
+    public int removeLast() {
+        return values[--size];
+    }
+
+    /**
+     * 按升序排序
+     */
+    public void sort() {
+        Arrays.sort(values, 0, size);
+    }
+
+    public void clear() {
+        size = 0;
+    }
+}
@@ -0,0 +1,259 @@
+package com.junmeng.gsv.geometry;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 批量将点投影到屏幕坐标并裁剪掉范围外的点，点较多时按块分配到ForkJoinPool并行处理
+ * 每块写入自己预先分配的缓冲区，最后按顺序合并，结果与顺序处理完全一致
+ * 缓冲区和任务对象在多帧之间复用，点数不增加时每帧没有内存分配
+ * <p>
+ * 同一时间只能在一个线程中调用，点集合和变换在投影期间不能被修改
+ */
+
+public class ParallelPointProjector {
+
+    /**
+     * 默认每块的点数
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 8192;
+
+    private static ForkJoinPool defaultPool;
+
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+    private volatile int parallelThreshold;//点数达到此值才并行
+    private Chunk[] chunks = new Chunk[0];
+    private RootTask root;
+
+    private float[] screenPoints = new float[64];//投影结果，x,y交替
+    private int[] indices = new int[32];//投影结果对应的点序号
+    private int size;
+
+    //本次投影的参数，只在project期间有效
+    private ReadOnlyPoints src;
+    private IntList srcIndices;
+    private CameraTransform transform;
+    private float left, top, right, bottom;
+
+    /**
+     * @param pool      为null时只在调用线程中顺序处理
+     * @param chunkSize 每块的点数，点数不超过一块时不会并行
+     */
+    public ParallelPointProjector(ForkJoinPool pool, int chunkSize) {
+        this.pool = pool;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.parallelThreshold = this.chunkSize * 2;
+    }
+
+    /**
+     * 设置并行处理的最少点数，点数较少时分派任务的开销大于收益
+     *
+     * @param count 默认为两块的点数，Integer.MAX_VALUE表示总是顺序处理
+     */
+    public void setParallelThreshold(int count) {
+        parallelThreshold = count;
+    }
+
+    public int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    /**
+     * 获得默认的ForkJoinPool，并行度为CPU核数
+     *
+     * @return
+     */
+    public static synchronized ForkJoinPool getDefaultPool() {
+        if (defaultPool == null) {
+            defaultPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        }
+        return defaultPool;
+    }
+
+    /**
+     * 投影并裁剪点
+     *
+     * @param src       点集合，坐标为点坐标
+     * @param indices   只处理这些序号的点，为null时处理全部点
+     * @param transform 点坐标到屏幕坐标的变换
+     * @param left      保留的屏幕范围，包含边界
+     * @param top
+     * @param right
+     * @param bottom
+     * @return 保留的点的个数，结果通过getScreenPoints和getIndices获得
+     */
+    public int project(ReadOnlyPoints src, IntList indices, CameraTransform transform,
+                       float left, float top, float right, float bottom) {
+        int n = indices != null ? indices.size() : src.size();
+        this.src = src;
+        this.srcIndices = indices;
+        this.transform = transform;
+        this.left = left;
+        this.top = top;
+        this.right = right;
+        this.bottom = bottom;
+
+        int chunkCount = (n + chunkSize - 1) / chunkSize;
+        ensureChunks(Math.max(1, chunkCount));
+        if (pool == null || n < parallelThreshold || chunkCount <= 1 || pool.getParallelism() <= 1) {
+            chunks[0].project(0, n);
+            chunkCount = 1;
+        } else {
+            for (int i = 0; i < chunkCount; i++) {
+                chunks[i].from = i * chunkSize;
+                chunks[i].to = Math.min(n, (i + 1) * chunkSize);
+            }
+            if (root == null) {
+                root = new RootTask();
+            }
+            root.reinitialize();
+            root.chunkCount = chunkCount;
+            pool.invoke(root);
+        }
+
+        //按块的顺序合并结果
+        int total = 0;
+        for (int i = 0; i < chunkCount; i++) {
+            total += chunks[i].count;
+        }
+        ensureCapacity(total);
+        int offset = 0;
+        for (int i = 0; i < chunkCount; i++) {
+            Chunk chunk = chunks[i];
+            System.arraycopy(chunk.xy, 0, screenPoints, offset * 2, chunk.count * 2);
+            System.arraycopy(chunk.indices, 0, this.indices, offset, chunk.count);
+            offset += chunk.count;
+        }
+        size = total;
+        this.src = null;
+        this.srcIndices = null;
+        this.transform = null;
+        return total;
+    }
+
+    /**
+     * 获得投影后的屏幕坐标，x,y交替，有效长度为size()*2
+     *
+     * @return
+     */
+    public float[] getScreenPoints() {
+        return screenPoints;
+    }
+
+    /**
+     * 获得投影后每个点在点集合中的序号，有效长度为size()
+     *
+     * @return
+     */
+    public int[] getIndices() {
+        return indices;
+    }
+
+    /**
+     * 获得上一次投影保留的点的个数
+     *
+     * @return
+     */
+    public int size() {
+        return size;
+    }
+
+    private void ensureChunks(int count) {
+        if (chunks.length < count) {
+            Chunk[] newChunks = Arrays.copyOf(chunks, count);
+            for (int i = chunks.length; i < count; i++) {
+                newChunks[i] = new Chunk();
+            }
+            chunks = newChunks;
+        }
+    }
+
+    private void ensureCapacity(int count) {
+        if (screenPoints.length < count * 2) {
+            screenPoints = new float[Math.max(count * 2, screenPoints.length * 2)];
+        }
+        if (indices.length < count) {
+            indices = new int[Math.max(count, indices.length * 2)];
+        }
+    }
+
+    /**
+     * 一块点的投影结果
+     */
+    private final class Chunk {
+        float[] xy = new float[0];
+        int[] indices = new int[0];
+        int count;
+        int from, to;
+        ChunkTask task;
+
+        void project(int from, int to) {
+            int n = to - from;
+            if (indices.length < n) {
+                xy = new float[n * 2];
+                indices = new int[n];
+            }
+            ReadOnlyPoints src = ParallelPointProjector.this.src;
+            IntList srcIndices = ParallelPointProjector.this.srcIndices;
+            CameraTransform t = transform;
+            float l = left, tp = top, r = right, b = bottom;
+            int c = 0;
+            for (int i = from; i < to; i++) {
+                int index = srcIndices != null ? srcIndices.get(i) : i;
+                float x = src.getX(index);
+                float y = src.getY(index);
+                float sx = t.toScreenX(x, y);
+                float sy = t.toScreenY(x, y);
+                if (sx >= l && sx <= r && sy >= tp && sy <= b) {
+                    xy[c * 2] = sx;
+                    xy[c * 2 + 1] = sy;
+                    indices[c] = index;
+                    c++;
+                }
+            }
+            count = c;
+        }
+    }
+
+    private final class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        final Chunk chunk;
+
+        ChunkTask(Chunk chunk) {
+            this.chunk = chunk;
+        }
+
+        @Override
+        protected void compute() {
+            chunk.project(chunk.from, chunk.to);
+        }
+    }
+
+    /**
+     * 在池中把除第一块以外的块分出去，第一块在当前线程处理
+     */
+    private final class RootTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        int chunkCount;
+
+        @Override
+        protected void compute() {
+            for (int i = 1; i < chunkCount; i++) {
+                Chunk chunk = chunks[i];
+                if (chunk.task == null) {
+                    chunk.task = new ChunkTask(chunk);
+                }
+                chunk.task.reinitialize();
+                chunk.task.fork();
+            }
+            chunks[0].project(chunks[0].from, chunks[0].to);
+            for (int i = chunkCount - 1; i >= 1; i--) {
+                chunks[i].task.join();
+            }
+        }
+    }
+}
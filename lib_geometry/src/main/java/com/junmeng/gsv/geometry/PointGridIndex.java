@@ -0,0 +1,156 @@
+package com.junmeng.gsv.geometry;
+
+import java.util.Arrays;
+
+/**
+ * 点的网格空间索引，按坐标将点的序号分配到均匀网格中
+ * 查询时只返回与给定矩形相交的网格内的点，网格边缘附近可能多返回少量矩形外的点
+ * 超出索引范围的点会归入最近的边缘网格，查询结果仍然正确
+ * 已添加的点坐标变化时可通过move或update移到新的网格，不需要重建
+ */
+
+public class PointGridIndex {
+
+    private static final int MAX_GRID = 64;//每个方向最多的网格数
+    private static final float MIN_CELL_SIZE = 16;
+
+    private float originX, originY;//索引范围的左上角
+    private float cellSize = MIN_CELL_SIZE;
+    private int cols = 1, rows = 1;
+    private IntList[] cells = new IntList[1];
+    private int[] cellIndex = new int[16];//每个点所在的网格
+    private int count;//已索引的点数
+
+    /**
+     * 重置索引范围，会清空所有点
+     */
+    public void reset(float left, float top, float width, float height) {
+        originX = left;
+        originY = top;
+        cellSize = Math.max(MIN_CELL_SIZE, Math.max(width, height) / MAX_GRID);
+        cols = Math.max(1, (int) Math.ceil(width / cellSize));
+        rows = Math.max(1, (int) Math.ceil(height / cellSize));
+        cells = new IntList[cols * rows];
+        count = 0;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * 添加点，序号须从0开始按递增顺序添加
+     */
+    public void add(int index, float x, float y) {
+        if (index >= cellIndex.length) {
+            cellIndex = Arrays.copyOf(cellIndex, Math.max(index + 1, cellIndex.length * 2));
+        }
+        int cell = cellOf(x, y);
+        addToCell(cell, index);
+        cellIndex[index] = cell;
+        count++;
+    }
+
+    /**
+     * 移除最后添加的点
+     */
+    public void removeLast() {
+        if (count > 0) {
+            count--;
+            removeFromCell(cellIndex[count], count);
+        }
+    }
+
+    /**
+     * 移动已添加的点，所在网格不变时不做任何修改
+     */
+    public void move(int index, float x, float y) {
+        int cell = cellOf(x, y);
+        int old = cellIndex[index];
+        if (cell != old) {
+            removeFromCell(old, index);
+            addToCell(cell, index);
+            cellIndex[index] = cell;
+        }
+    }
+
+    /**
+     * 按点的最新坐标更新所有已添加的点，只移动所在网格变化的点
+     *
+     * @param points 序号与添加时一致，点数不能少于size()
+     */
+    public void update(ReadOnlyPoints points) {
+        for (int i = 0; i < count; i++) {
+            move(i, points.getX(i), points.getY(i));
+        }
+    }
+
+    public void clear() {
+        for (IntList list : cells) {
+            if (list != null) {
+                list.clear();
+            }
+        }
+        count = 0;
+    }
+
+    /**
+     * 查询与矩形相交的网格内的所有点的序号
+     * 结果按网格分组，不是按序号排列的，需要保持添加顺序(如绘制的先后)时应自行排序
+     *
+     * @param out 结果，会先清空
+     */
+    public void query(float left, float top, float right, float bottom, IntList out) {
+        out.clear();
+        if (count == 0 || right < left || bottom < top) {
+            return;
+        }
+        int c0 = clampCol(left);
+        int c1 = clampCol(right);
+        int r0 = clampRow(top);
+        int r1 = clampRow(bottom);
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                IntList list = cells[r * cols + c];
+                if (list == null) {
+                    continue;
+                }
+                for (int i = 0, n = list.size(); i < n; i++) {
+                    out.add(list.get(i));
+                }
+            }
+        }
+    }
+
+    private void addToCell(int cell, int index) {
+        IntList list = cells[cell];
+        if (list == null) {
+            list = cells[cell] = new IntList(4);
+        }
+        list.add(index);
+    }
+
+    private void removeFromCell(int cell, int index) {
+        //网格内的顺序不重要，用最后一个元素填补空位
+        IntList list = cells[cell];
+        int i = list.indexOf(index);
+        int last = list.removeLast();
+        if (i < list.size()) {
+            list.set(i, last);
+        }
+    }
+
+    private int cellOf(float x, float y) {
+        return clampRow(y) * cols + clampCol(x);
+    }
+
+    private int clampCol(float x) {
+        int c = (int) Math.floor((x - originX) / cellSize);
+        return c < 0 ? 0 : (c >= cols ? cols - 1 : c);
+    }
+
+    private int clampRow(float y) {
+        int r = (int) Math.floor((y - originY) / cellSize);
+        return r < 0 ? 0 : (r >= rows ? rows - 1 : r);
+    }
+}
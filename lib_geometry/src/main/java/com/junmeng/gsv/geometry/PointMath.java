@@ -0,0 +1,71 @@
+package com.junmeng.gsv.geometry;
+
+/**
+ * 点的旋转计算，不依赖Android，可在JVM上测试和基准测试
+ */
+
+public final class PointMath {
+
+    private PointMath() {
+    }
+
+    /**
+     * 角度的余弦值
+     *
+     * @param degrees 角度
+     * @return
+     */
+    public static float cos(float degrees) {
+        return (float) Math.cos(Math.toRadians(degrees));
+    }
+
+    /**
+     * 角度的正弦值
+     *
+     * @param degrees 角度
+     * @return
+     */
+    public static float sin(float degrees) {
+        return (float) Math.sin(Math.toRadians(degrees));
+    }
+
+    /**
+     * (x,y)绕(ox,oy)旋转后的x坐标
+     *
+     * @param cos 旋转角度的余弦值
+     * @param sin 旋转角度的正弦值
+     */
+    public static float rotateX(float x, float y, float ox, float oy, float cos, float sin) {
+        return (x - ox) * cos - (y - oy) * sin + ox;
+    }
+
+    /**
+     * (x,y)绕(ox,oy)旋转后的y坐标
+     *
+     * @param cos 旋转角度的余弦值
+     * @param sin 旋转角度的正弦值
+     */
+    public static float rotateY(float x, float y, float ox, float oy, float cos, float sin) {
+        return (x - ox) * sin + (y - oy) * cos + oy;
+    }
+
+    /**
+     * 将数组中的点绕(ox,oy)原地旋转
+     *
+     * @param pts    x,y交替保存的坐标
+     * @param offset 数组中的起始位置
+     * @param count  点的个数
+     * @param ox     中心点x
+     * @param oy     中心点y
+     * @param cos    旋转角度的余弦值
+     * @param sin    旋转角度的正弦值
+     */
+    public static void rotatePoints(float[] pts, int offset, int count, float ox, float oy, float cos, float sin) {
+        for (int i = offset, end = offset + count * 2; i < end; i += 2) {
+            float dx = pts[i] - ox;
+            float dy = pts[i + 1] - oy;
+            pts[i] = dx * cos - dy * sin + ox;
+            pts[i + 1] = dx * sin + dy * cos + oy;
+        }
+    }
+}
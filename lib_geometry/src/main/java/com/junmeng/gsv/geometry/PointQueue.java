@@ -0,0 +1,122 @@
+package com.junmeng.gsv.geometry;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 有界无锁的点队列，每个元素为(id, x, y)，多个线程可同时提交，取出一般只在一个线程中进行
+ * 基于环形数组和每个槽位的序号实现，提交和取出都只需一次CAS，不会阻塞也没有内存分配
+ * 取出同样是CAS，因此提交线程在队列满时也可以丢弃最旧的元素
+ */
+
+public class PointQueue {
+
+    private final int mask;
+    private final AtomicLongArray sequences;//槽位的序号，等于写入位置时可写，等于写入位置+1时可读
+    private final int[] ids;
+    private final float[] xs;
+    private final float[] ys;
+    private final AtomicLong tail = new AtomicLong();//下一个写入位置
+    private final AtomicLong head = new AtomicLong();//下一个读取位置
+
+    /**
+     * @param capacity 容量，会向上取为2的幂
+     */
+    public PointQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        mask = size - 1;
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        ids = new int[size];
+        xs = new float[size];
+        ys = new float[size];
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * 获得大致的元素个数，有并发修改时只作参考
+     *
+     * @return
+     */
+    public int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, capacity()));
+    }
+
+    /**
+     * 提交一个点，可在任意线程调用
+     *
+     * @return 队列已满时返回false
+     */
+    public boolean offer(int id, float x, float y) {
+        while (true) {
+            long pos = tail.get();
+            int slot = (int) pos & mask;
+            long diff = sequences.get(slot) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    ids[slot] = id;
+                    xs[slot] = x;
+                    ys[slot] = y;
+                    sequences.lazySet(slot, pos + 1);
+                    return true;
+                }
+            } else if (diff < 0) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * 丢弃最旧的一个点，队列满时提交线程可先调用此方法腾出位置
+     *
+     * @return 队列为空时返回false
+     */
+    public boolean dropOldest() {
+        return poll(null, 0, null, 0);
+    }
+
+    /**
+     * 取出最多max个点
+     *
+     * @param xy    取出的坐标，x,y交替，长度至少为max*2
+     * @param outId 取出的id，长度至少为max，为null时不需要id
+     * @param max   最多取出的个数
+     * @return 取出的个数
+     */
+    public int drain(float[] xy, int[] outId, int max) {
+        int count = 0;
+        while (count < max && poll(xy, count * 2, outId, count)) {
+            count++;
+        }
+        return count;
+    }
+
+    private boolean poll(float[] xy, int xyOffset, int[] outId, int idOffset) {
+        while (true) {
+            long pos = head.get();
+            int slot = (int) pos & mask;
+            long diff = sequences.get(slot) - (pos + 1);
+            if (diff == 0) {
+                if (head.compareAndSet(pos, pos + 1)) {
+                    if (xy != null) {
+                        xy[xyOffset] = xs[slot];
+                        xy[xyOffset + 1] = ys[slot];
+                    }
+                    if (outId != null) {
+                        outId[idOffset] = ids[slot];
+                    }
+                    sequences.lazySet(slot, pos + mask + 1);
+                    return true;
+                }
+            } else if (diff < 0) {
+                return false;
+            }
+        }
+    }
+}
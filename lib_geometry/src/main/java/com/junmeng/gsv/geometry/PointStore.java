@@ -0,0 +1,462 @@
+package com.junmeng.gsv.geometry;
+
+import java.util.Arrays;
+
+/**
+ * 基于基本类型数组的点集合，x、y分别保存在可增长的float数组中，id按需分配
+ * 相比List&lt;PointF&gt;没有每个点的对象开销，适合大量点的保存和遍历
+ * <p>
+ * 修改只能在一个线程中进行(一般是UI线程)，其他线程(如绘制线程)通过{@link #snapshot()}获得只读快照
+ * 快照只会读取其创建时的点数范围内的数据，追加点写在此范围之外；插入、移除、修改坐标、清空以及移除后再追加会复制数组，不影响已有的快照
+ * 快照带有三个版本：每次修改都变的版本、已有点的坐标被修改时变的坐标版本和点的序号变化时变的结构版本
+ * 只移除末尾的点不改变结构版本，快照的点数变少即表示移除了末尾的点
+ */
+
+public class PointStore implements ReadOnlyPoints {
+
+    /**
+     * 没有设置id
+     */
+    public static final int NO_ID = -1;
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private float[] xs;
+    private float[] ys;
+    private int[] ids;//只有添加过带id的点后才会分配
+    private int sharedSize;//已发布的快照中使用当前数组的最大点数，追加时不能原地覆盖这个范围
+    private IntIntMap idIndex;//id到序号，按需建立，点的序号变化时失效
+    private int size;
+    private long version;//每次修改加1
+    private long moveVersion;//已有点的坐标被修改，或移除末尾的点后在已发布的序号上追加新点时加1
+    private long structureVersion;//点的序号发生变化(插入、移除、清空)时加1
+    private volatile Snapshot snapshot;
+
+    public PointStore() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public PointStore(int capacity) {
+        capacity = Math.max(1, capacity);
+        xs = new float[capacity];
+        ys = new float[capacity];
+        snapshot = new Snapshot(xs, ys, null, 0, 0, 0, 0);
+    }
+
+    /**
+     * 获得最新的只读快照，可在任意线程调用
+     *
+     * @return
+     */
+    public Snapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * 获得修改版本，每次修改都会变化
+     *
+     * @return
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * 发布修改后的快照
+     *
+     * @param isStructural 是否改变了已有点的序号
+     */
+    private void publish(boolean isStructural) {
+        version++;
+        if (isStructural) {
+            structureVersion++;
+        }
+        snapshot = new Snapshot(xs, ys, ids, size, version, moveVersion, structureVersion);
+        sharedSize = Math.max(sharedSize, size);
+    }
+
+    /**
+     * 通知点的数据已被改变，强制发布新的快照
+     */
+    public void notifyChanged() {
+        publish(true);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public float getX(int index) {
+        checkIndex(index);
+        return xs[index];
+    }
+
+    @Override
+    public float getY(int index) {
+        checkIndex(index);
+        return ys[index];
+    }
+
+    @Override
+    public int getId(int index) {
+        checkIndex(index);
+        return ids != null ? ids[index] : NO_ID;
+    }
+
+    @Override
+    public void copyTo(int from, int count, float[] dst, int dstOffset) {
+        if (from < 0 || count < 0 || from + count > size) {
+            throw new IndexOutOfBoundsException("from=" + from + ",count=" + count + ",size=" + size);
+        }
+        for (int i = 0; i < count; i++) {
+            dst[dstOffset++] = xs[from + i];
+            dst[dstOffset++] = ys[from + i];
+        }
+    }
+
+    /**
+     * 添加点
+     *
+     * @return 点的序号
+     */
+    public int add(float x, float y) {
+        return add(x, y, NO_ID);
+    }
+
+    /**
+     * 添加带id的点
+     *
+     * @return 点的序号
+     */
+    public int add(float x, float y, int id) {
+        ensureCapacity(size + 1);
+        xs[size] = x;
+        ys[size] = y;
+        if (id != NO_ID || ids != null) {
+            ensureIds();
+            ids[size] = id;
+        }
+        int index = size++;
+        if (idIndex != null) {
+            indexId(id, index);
+        }
+        publish(false);
+        return index;
+    }
+
+    /**
+     * 批量添加点
+     *
+     * @param xy     x,y交替保存的坐标
+     * @param offset 数组中的起始位置
+     * @param count  点的个数
+     */
+    public void addAll(float[] xy, int offset, int count) {
+        ensureCapacity(size + count);
+        for (int i = 0; i < count; i++) {
+            xs[size + i] = xy[offset + i * 2];
+            ys[size + i] = xy[offset + i * 2 + 1];
+        }
+        if (ids != null) {
+            Arrays.fill(ids, size, size + count, NO_ID);
+        }
+        size += count;
+        publish(false);
+    }
+
+    /**
+     * 批量添加带id的点
+     *
+     * @param xy       x,y交替保存的坐标
+     * @param xyOffset 坐标数组中的起始位置
+     * @param ids      每个点的id
+     * @param idOffset id数组中的起始位置
+     * @param count    点的个数
+     */
+    public void addAll(float[] xy, int xyOffset, int[] ids, int idOffset, int count) {
+        ensureCapacity(size + count);
+        ensureIds();
+        for (int i = 0; i < count; i++) {
+            xs[size + i] = xy[xyOffset + i * 2];
+            ys[size + i] = xy[xyOffset + i * 2 + 1];
+            this.ids[size + i] = ids[idOffset + i];
+            if (idIndex != null) {
+                indexId(ids[idOffset + i], size + i);
+            }
+        }
+        size += count;
+        publish(false);
+    }
+
+    /**
+     * 在指定位置插入点
+     */
+    public void insert(int index, float x, float y) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("index=" + index + ",size=" + size);
+        }
+        copyOnWrite(Math.max(xs.length, size + 1));
+        System.arraycopy(xs, index, xs, index + 1, size - index);
+        System.arraycopy(ys, index, ys, index + 1, size - index);
+        xs[index] = x;
+        ys[index] = y;
+        if (ids != null) {
+            System.arraycopy(ids, index, ids, index + 1, size - index);
+            ids[index] = NO_ID;
+        }
+        size++;
+        idIndex = null;
+        publish(true);
+    }
+
+    /**
+     * 修改点的坐标，要修改的点在已发布的快照中时先复制数组，不影响已有的快照
+     * 批量修改时请使用setAll，只复制一次
+     */
+    public void set(int index, float x, float y) {
+        checkIndex(index);
+        if (index < sharedSize) {
+            copyOnWrite(xs.length);
+        }
+        xs[index] = x;
+        ys[index] = y;
+        moveVersion++;
+        publish(false);
+    }
+
+    /**
+     * 批量修改点的坐标，只发布一次快照，有点在已发布的快照中时整批只复制一次数组
+     * 只改变坐标版本，空间索引可以只移动坐标变化的点而不需要重建
+     *
+     * @param indices 点的序号
+     * @param xy      x,y交替保存的新坐标
+     * @param count   点的个数
+     */
+    public void setAll(int[] indices, float[] xy, int count) {
+        boolean isShared = false;
+        for (int i = 0; i < count; i++) {
+            checkIndex(indices[i]);
+            isShared |= indices[i] < sharedSize;
+        }
+        if (isShared) {
+            //快照可能正在被绘制线程读取，原地修改会让它读到x、y不是同一次的坐标
+            copyOnWrite(xs.length);
+        }
+        for (int i = 0; i < count; i++) {
+            int index = indices[i];
+            xs[index] = xy[i * 2];
+            ys[index] = xy[i * 2 + 1];
+        }
+        if (count > 0) {
+            moveVersion++;
+            publish(false);
+        }
+    }
+
+    /**
+     * 查找指定id的点，有多个时返回最后添加的一个
+     *
+     * @param id
+     * @return 点的序号，没有时返回-1
+     */
+    public int indexOfId(int id) {
+        if (id == NO_ID || ids == null) {
+            return -1;
+        }
+        if (id == Integer.MIN_VALUE) {//不能放入索引
+            for (int i = size - 1; i >= 0; i--) {
+                if (ids[i] == id) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        if (idIndex == null) {
+            idIndex = new IntIntMap(size);
+            for (int i = 0; i < size; i++) {
+                indexId(ids[i], i);
+            }
+        }
+        return idIndex.get(id, -1);
+    }
+
+    private void indexId(int id, int index) {
+        if (id != NO_ID && id != Integer.MIN_VALUE) {
+            idIndex.put(id, index);
+        }
+    }
+
+    /**
+     * 移除最后一个点，只缩小点数，不改变结构版本，空间索引可以只移除末尾的序号
+     * 之后追加的点会写入新的数组，不影响已有的快照
+     *
+     * @return 是否有点被移除
+     */
+    public boolean removeLast() {
+        if (size == 0) {
+            return false;
+        }
+        size--;
+        idIndex = null;
+        publish(false);
+        return true;
+    }
+
+    /**
+     * 移除指定位置的点
+     */
+    public void remove(int index) {
+        removeRange(index, index + 1);
+    }
+
+    /**
+     * 移除[from, to)范围内的点
+     */
+    public void removeRange(int from, int to) {
+        if (from < 0 || to > size || from > to) {
+            throw new IndexOutOfBoundsException("from=" + from + ",to=" + to + ",size=" + size);
+        }
+        int tail = size - to;
+        copyOnWrite(xs.length);
+        System.arraycopy(xs, to, xs, from, tail);
+        System.arraycopy(ys, to, ys, from, tail);
+        if (ids != null) {
+            System.arraycopy(ids, to, ids, from, tail);
+        }
+        size -= to - from;
+        idIndex = null;
+        publish(true);
+    }
+
+    /**
+     * 清除所有点
+     */
+    public void clear() {
+        xs = new float[DEFAULT_CAPACITY];
+        ys = new float[DEFAULT_CAPACITY];
+        ids = null;
+        sharedSize = 0;
+        idIndex = null;
+        size = 0;
+        publish(true);
+    }
+
+    /**
+     * 复制数组后再修改，已发布的快照不受影响
+     */
+    private void copyOnWrite(int capacity) {
+        sharedSize = 0;
+        xs = Arrays.copyOf(xs, capacity);
+        ys = Arrays.copyOf(ys, capacity);
+        if (ids != null) {
+            ids = Arrays.copyOf(ids, capacity);
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (size < sharedSize) {
+            //移除末尾的点后再追加，这些序号在已发布的快照中是旧的点，对读取者来说相当于坐标被修改了
+            moveVersion++;
+        }
+        if (capacity > xs.length) {
+            copyOnWrite(Math.max(capacity, xs.length * 2));
+        } else if (size < sharedSize) {
+            //移除最后的点后再追加，要写入的位置仍在旧快照的范围内
+            copyOnWrite(xs.length);
+        }
+    }
+
+    private void ensureIds() {
+        if (ids == null) {
+            ids = new int[xs.length];
+            Arrays.fill(ids, NO_ID);
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index=" + index + ",size=" + size);
+        }
+    }
+
+    /**
+     * 点集合的只读快照
+     */
+    public static final class Snapshot implements ReadOnlyPoints {
+
+        private final float[] xs;
+        private final float[] ys;
+        private final int[] ids;
+        private final int size;
+        private final long version;
+        private final long moveVersion;
+        private final long structureVersion;
+
+        Snapshot(float[] xs, float[] ys, int[] ids, int size, long version, long moveVersion, long structureVersion) {
+            this.xs = xs;
+            this.ys = ys;
+            this.ids = ids;
+            this.size = size;
+            this.version = version;
+            this.moveVersion = moveVersion;
+            this.structureVersion = structureVersion;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public float getX(int index) {
+            return xs[index];
+        }
+
+        @Override
+        public float getY(int index) {
+            return ys[index];
+        }
+
+        @Override
+        public int getId(int index) {
+            return ids != null ? ids[index] : NO_ID;
+        }
+
+        @Override
+        public void copyTo(int from, int count, float[] dst, int dstOffset) {
+            for (int i = 0; i < count; i++) {
+                dst[dstOffset++] = xs[from + i];
+                dst[dstOffset++] = ys[from + i];
+            }
+        }
+
+        /**
+         * 获得修改版本
+         *
+         * @return
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * 获得坐标版本，修改已有点的坐标(set、setAll)或移除末尾的点后又追加时变化
+         *
+         * @return
+         */
+        public long getMoveVersion() {
+            return moveVersion;
+        }
+
+        /**
+         * 获得结构版本，只追加点或修改坐标时不变
+         *
+         * @return
+         */
+        public long getStructureVersion() {
+            return structureVersion;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.junmeng.gsv.geometry;
+
+/**
+ * 点集合的只读视图
+ */
+
+public interface ReadOnlyPoints {
+
+    /**
+     * 点的个数
+     *
+     * @return
+     */
+    int size();
+
+    float getX(int index);
+
+    float getY(int index);
+
+    /**
+     * 获得点的id，没有设置过id的点返回{@link PointStore#NO_ID}
+     *
+     * @param index
+     * @return
+     */
+    int getId(int index);
+
+    /**
+     * 将[from, from+count)范围内的点按x,y交替的方式复制到数组中
+     *
+     * @param from   起始序号
+     * @param count  个数
+     * @param dst    目标数组，长度至少为dstOffset+count*2
+     * @param dstOffset 目标数组的起始位置
+     */
+    void copyTo(int from, int count, float[] dst, int dstOffset);
+}
@@ -0,0 +1,118 @@
+package com.junmeng.gsv.geometry;
+
+/**
+ * 绕中心点旋转的矩形，用于判断点或矩形是否在其内部
+ * 中心点、三角函数值和四个角点会被缓存，只有边界或旋转角度变化后才重新计算
+ * 边界判断规则与android.graphics.RectF一致：包含左上边，不包含右下边
+ */
+
+public class RotatedRect {
+
+    private float left, top, right, bottom;
+    private float rotate;
+    private boolean isValid = false;
+
+    private float centerX, centerY;
+    private float cos = 1, sin = 0;//旋转角度的三角函数值
+    private boolean isRotated = false;//旋转角度是否不为0
+    private final float[] corners = new float[8];//左上、右上、右下、左下
+
+    /**
+     * 设置边界和旋转角度，没有变化时保留缓存
+     *
+     * @param rotate 旋转角度，正为顺时针
+     */
+    public void set(float left, float top, float right, float bottom, float rotate) {
+        if (isValid && this.left == left && this.top == top && this.right == right && this.bottom == bottom && this.rotate == rotate) {
+            return;
+        }
+        this.left = left;
+        this.top = top;
+        this.right = right;
+        this.bottom = bottom;
+        if (!isValid || this.rotate != rotate) {
+            this.rotate = rotate;
+            float angle = rotate % 360;
+            isRotated = !(angle < 0.000005 && angle > -0.000005);
+            cos = isRotated ? PointMath.cos(rotate) : 1;
+            sin = isRotated ? PointMath.sin(rotate) : 0;
+        }
+        centerX = left + Math.abs(right - left) / 2.0f;
+        centerY = top + Math.abs(bottom - top) / 2.0f;
+        setCorner(0, left, top);
+        setCorner(1, right, top);
+        setCorner(2, right, bottom);
+        setCorner(3, left, bottom);
+        isValid = true;
+    }
+
+    private void setCorner(int i, float x, float y) {
+        corners[i * 2] = PointMath.rotateX(x, y, centerX, centerY, cos, sin);
+        corners[i * 2 + 1] = PointMath.rotateY(x, y, centerX, centerY, cos, sin);
+    }
+
+    public float getCenterX() {
+        return centerX;
+    }
+
+    public float getCenterY() {
+        return centerY;
+    }
+
+    /**
+     * 获得某个角点的坐标
+     *
+     * @param i 0~3依次为左上、右上、右下、左下
+     */
+    public float getCornerX(int i) {
+        return corners[i * 2];
+    }
+
+    public float getCornerY(int i) {
+        return corners[i * 2 + 1];
+    }
+
+    /**
+     * 获得旋转后的四个角点
+     *
+     * @param out 长度至少为8，依次为左上、右上、右下、左下的x,y
+     * @return out
+     */
+    public float[] getCorners(float[] out) {
+        System.arraycopy(corners, 0, out, 0, 8);
+        return out;
+    }
+
+    /**
+     * 判断点是否在旋转后的矩形内
+     */
+    public boolean contains(float x, float y) {
+        if (!isRotated) {
+            return containsUnrotated(x, y);
+        }
+        //反向旋转到未旋转的矩形中判断，cos(-a)=cos(a)，sin(-a)=-sin(a)
+        return containsUnrotated(PointMath.rotateX(x, y, centerX, centerY, cos, -sin),
+                PointMath.rotateY(x, y, centerX, centerY, cos, -sin));
+    }
+
+    /**
+     * 判断矩形的左上和右下点反向旋转后构成的矩形是否在未旋转的矩形内
+     */
+    public boolean contains(float l, float t, float r, float b) {
+        if (!isRotated) {
+            return containsUnrotated(l, t, r, b);
+        }
+        return containsUnrotated(PointMath.rotateX(l, t, centerX, centerY, cos, -sin),
+                PointMath.rotateY(l, t, centerX, centerY, cos, -sin),
+                PointMath.rotateX(r, b, centerX, centerY, cos, -sin),
+                PointMath.rotateY(r, b, centerX, centerY, cos, -sin));
+    }
+
+    private boolean containsUnrotated(float x, float y) {
+        return left < right && top < bottom && x >= left && x < right && y >= top && y < bottom;
+    }
+
+    private boolean containsUnrotated(float l, float t, float r, float b) {
+        return left < right && top < bottom && left <= l && top <= t && right >= r && bottom >= b;
+    }
+}
@@ -0,0 +1,77 @@
+package com.junmeng.gsv.geometry;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class CameraTransformTest {
+
+    private static final float DELTA = 1e-3f;
+
+    private static CameraTransform transform(float centerX, float centerY, float scale, float rotate) {
+        CameraTransform t = new CameraTransform();
+        t.set(centerX, centerY, scale, PointMath.cos(rotate), PointMath.sin(rotate));
+        return t;
+    }
+
+    @Test
+    public void toScreen_scalesRotatesAndTranslates() {
+        CameraTransform t = transform(100, 200, 2, 90);
+        //(1,0)放大2倍后顺时针旋转90度落在中心点正下方
+        assertEquals(100, t.toScreenX(1, 0), DELTA);
+        assertEquals(202, t.toScreenY(1, 0), DELTA);
+        assertEquals(100, t.toScreenX(0, 0), DELTA);
+        assertEquals(200, t.toScreenY(0, 0), DELTA);
+    }
+
+    @Test
+    public void toMap_invertsToScreen() {
+        Random random = new Random(1);
+        for (int k = 0; k < 20; k++) {
+            CameraTransform t = transform(random.nextFloat() * 1000, random.nextFloat() * 1000,
+                    0.1f + random.nextFloat() * 5, random.nextFloat() * 720 - 360);
+            for (int i = 0; i < 50; i++) {
+                float x = random.nextFloat() * 2000 - 1000;
+                float y = random.nextFloat() * 2000 - 1000;
+                float sx = t.toScreenX(x, y);
+                float sy = t.toScreenY(x, y);
+                assertEquals(x, t.toMapX(sx, sy), 0.05f);
+                assertEquals(y, t.toMapY(sx, sy), 0.05f);
+            }
+        }
+    }
+
+    @Test
+    public void batchMethods_matchSinglePointMethods_andWorkInPlace() {
+        CameraTransform t = transform(540, 960, 1.5f, 33);
+        float[] in = {0, 0, 10, -20, -300, 400, 1234, 5};
+        float[] out = new float[in.length];
+        t.mapToScreen(in, 0, out, 0, 4);
+        for (int i = 0; i < 4; i++) {
+            assertEquals(t.toScreenX(in[i * 2], in[i * 2 + 1]), out[i * 2], DELTA);
+            assertEquals(t.toScreenY(in[i * 2], in[i * 2 + 1]), out[i * 2 + 1], DELTA);
+        }
+        float[] buffer = out.clone();
+        t.screenToMap(buffer, 0, buffer, 0, 4);
+        assertArrayEquals(in, buffer, 0.01f);
+    }
+
+    @Test
+    public void batchMethods_honorOffsets() {
+        CameraTransform t = transform(10, 20, 3, 0);
+        float[] in = {99, 99, 1, 2};
+        float[] out = new float[6];
+        t.mapToScreen(in, 2, out, 4, 1);
+        assertEquals(13, out[4], DELTA);
+        assertEquals(26, out[5], DELTA);
+        assertEquals(0, out[0], 0);
+    }
+
+    @Test
+    public void zeroScale_isNotInvertible() {
+        assertTrue(transform(0, 0, 1, 0).isInvertible());
+        assertFalse(transform(0, 0, 0, 0).isInvertible());
+    }
+}
@@ -0,0 +1,70 @@
+package com.junmeng.gsv.geometry;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class IntIntMapTest {
+
+    @Test
+    public void get_returnsMissingForAbsentKey() {
+        IntIntMap map = new IntIntMap(4);
+        assertEquals(-1, map.get(7, -1));
+        map.put(7, 70);
+        assertEquals(70, map.get(7, -1));
+        assertEquals(-1, map.get(8, -1));
+    }
+
+    @Test
+    public void put_overwritesExistingKey() {
+        IntIntMap map = new IntIntMap(4);
+        map.put(3, 1);
+        map.put(3, 2);
+        assertEquals(2, map.get(3, -1));
+    }
+
+    @Test
+    public void growsBeyondInitialCapacity() {
+        IntIntMap map = new IntIntMap(1);
+        for (int i = 0; i < 10000; i++) {
+            map.put(i * 31, i);
+        }
+        for (int i = 0; i < 10000; i++) {
+            assertEquals(i, map.get(i * 31, -1));
+        }
+        assertEquals(-1, map.get(1, -1));
+    }
+
+    @Test
+    public void matchesHashMap_forRandomKeys() {
+        Random random = new Random(1);
+        IntIntMap map = new IntIntMap(16);
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 20000; i++) {
+            int key = random.nextInt();
+            if (key == Integer.MIN_VALUE) {
+                continue;
+            }
+            map.put(key, i);
+            expected.put(key, i);
+        }
+        for (Map.Entry<Integer, Integer> e : expected.entrySet()) {
+            assertEquals((int) e.getValue(), map.get(e.getKey(), -1));
+        }
+    }
+
+    @Test
+    public void negativeAndZeroKeys() {
+        IntIntMap map = new IntIntMap(4);
+        map.put(0, 10);
+        map.put(-1, 20);
+        map.put(Integer.MAX_VALUE, 30);
+        assertEquals(10, map.get(0, -5));
+        assertEquals(20, map.get(-1, -5));
+        assertEquals(30, map.get(Integer.MAX_VALUE, -5));
+    }
+}
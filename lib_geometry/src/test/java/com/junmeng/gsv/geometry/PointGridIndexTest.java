@@ -0,0 +1,171 @@
+package com.junmeng.gsv.geometry;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class PointGridIndexTest {
+
+    private static int[] sorted(IntList list) {
+        int[] values = new int[list.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = list.get(i);
+        }
+        Arrays.sort(values);
+        return values;
+    }
+
+    private static float clamp(float v, float min, float max) {
+        return Math.max(min, Math.min(max, v));
+    }
+
+    private static PointGridIndex newIndex() {
+        PointGridIndex index = new PointGridIndex();
+        index.reset(0, 0, 1024, 1024);//网格边长16
+        return index;
+    }
+
+    @Test
+    public void move_changesCellOfPoint() {
+        PointGridIndex index = newIndex();
+        index.add(0, 8, 8);
+        index.add(1, 8, 8);
+        index.add(2, 500, 500);
+        index.move(0, 900, 900);
+
+        IntList out = new IntList();
+        index.query(0, 0, 10, 10, out);
+        assertArrayEquals(new int[]{1}, sorted(out));
+        index.query(890, 890, 910, 910, out);
+        assertArrayEquals(new int[]{0}, sorted(out));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    public void update_followsPointStoreSetAll() {
+        PointStore store = new PointStore();
+        PointGridIndex index = newIndex();
+        for (int i = 0; i < 100; i++) {
+            store.add(i * 10, i * 10);
+            index.add(i, i * 10, i * 10);
+        }
+        long structure = store.snapshot().getStructureVersion();
+        long move = store.snapshot().getMoveVersion();
+        store.setAll(new int[]{5, 50}, new float[]{1000, 1000, 2, 2}, 2);
+        //修改坐标只改变坐标版本，不需要重建索引
+        assertEquals(structure, store.snapshot().getStructureVersion());
+        assertNotEquals(move, store.snapshot().getMoveVersion());
+
+        index.update(store.snapshot());
+        IntList out = new IntList();
+        index.query(0, 0, 10, 10, out);
+        assertArrayEquals(new int[]{0, 1, 50}, sorted(out));
+        index.query(995, 995, 1005, 1005, out);
+        assertArrayEquals(new int[]{5}, sorted(out));
+        index.query(48, 48, 52, 52, out);
+        assertEquals(-1, out.indexOf(5));
+    }
+
+    @Test
+    public void undoThenAppend_followedByUpdate() {
+        PointStore store = new PointStore();
+        PointGridIndex index = newIndex();
+        for (int i = 0; i < 3; i++) {
+            store.add(8, 8);
+            index.add(i, 8, 8);
+        }
+        long move = store.snapshot().getMoveVersion();
+        //读取者同步之前撤销并追加，点数不变但序号2已是另一个点
+        store.removeLast();
+        store.add(900, 900);
+        PointStore.Snapshot snap = store.snapshot();
+        assertEquals(index.size(), snap.size());
+        assertNotEquals(move, snap.getMoveVersion());
+        index.update(snap);
+        IntList out = new IntList();
+        index.query(890, 890, 910, 910, out);
+        assertArrayEquals(new int[]{2}, sorted(out));
+
+        //撤销后同步只需移除末尾的序号
+        store.removeLast();
+        while (index.size() > store.snapshot().size()) {
+            index.removeLast();
+        }
+        index.query(0, 0, 1024, 1024, out);
+        assertArrayEquals(new int[]{0, 1}, sorted(out));
+    }
+
+    @Test
+    public void removeLast_afterMove() {
+        PointGridIndex index = newIndex();
+        index.add(0, 8, 8);
+        index.add(1, 8, 8);
+        index.move(1, 600, 600);
+        index.removeLast();
+        IntList out = new IntList();
+        index.query(0, 0, 1024, 1024, out);
+        assertArrayEquals(new int[]{0}, sorted(out));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    public void query_matchesBruteForceScan() {
+        Random random = new Random(7);
+        int n = 5000;
+        float[] xs = new float[n];
+        float[] ys = new float[n];
+        PointGridIndex index = new PointGridIndex();
+        index.reset(-1000, -500, 2000, 1000);//网格边长2000/64
+        float cellSize = 2000f / 64;
+        for (int i = 0; i < n; i++) {
+            //少量点超出索引范围
+            xs[i] = random.nextFloat() * 2200 - 1100;
+            ys[i] = random.nextFloat() * 1200 - 600;
+            index.add(i, xs[i], ys[i]);
+        }
+        IntList out = new IntList();
+        for (int k = 0; k < 200; k++) {
+            float left = random.nextFloat() * 2400 - 1200;
+            float top = random.nextFloat() * 1400 - 700;
+            float right = left + random.nextFloat() * 600;
+            float bottom = top + random.nextFloat() * 600;
+            index.query(left, top, right, bottom, out);
+            boolean[] found = new boolean[n];
+            for (int i = 0; i < out.size(); i++) {
+                int p = out.get(i);
+                assertFalse("duplicate " + p, found[p]);
+                found[p] = true;
+                //只会多返回矩形所在网格内的点，超出索引范围的点和矩形都归入边缘网格
+                boolean inRange = xs[p] >= -1000 && xs[p] < 1000 && ys[p] >= -500 && ys[p] < 500;
+                if (inRange) {
+                    assertTrue(xs[p] > clamp(left, -1000, 1000) - cellSize && xs[p] < clamp(right, -1000, 1000) + cellSize);
+                    assertTrue(ys[p] > clamp(top, -500, 500) - cellSize && ys[p] < clamp(bottom, -500, 500) + cellSize);
+                }
+            }
+            for (int i = 0; i < n; i++) {
+                if (xs[i] >= left && xs[i] <= right && ys[i] >= top && ys[i] <= bottom) {
+                    assertTrue("missing " + i, found[i]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void query_emptyOrInvertedRect() {
+        PointGridIndex index = newIndex();
+        IntList out = new IntList();
+        out.add(42);
+        index.query(0, 0, 100, 100, out);
+        assertEquals(0, out.size());
+        index.add(0, 10, 10);
+        index.query(100, 100, 0, 0, out);
+        assertEquals(0, out.size());
+        index.clear();
+        index.query(0, 0, 100, 100, out);
+        assertEquals(0, out.size());
+        assertEquals(0, index.size());
+    }
+}
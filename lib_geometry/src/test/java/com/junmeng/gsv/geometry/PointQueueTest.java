@@ -0,0 +1,121 @@
+package com.junmeng.gsv.geometry;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.*;
+
+public class PointQueueTest {
+
+    @Test
+    public void capacity_roundsUpToPowerOfTwo() {
+        assertEquals(2, new PointQueue(0).capacity());
+        assertEquals(8, new PointQueue(8).capacity());
+        assertEquals(16, new PointQueue(9).capacity());
+    }
+
+    @Test
+    public void offerAndDrain_keepsFifoOrder() {
+        PointQueue queue = new PointQueue(8);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(queue.offer(i, i * 10, i * 100));
+        }
+        assertEquals(5, queue.size());
+        float[] xy = new float[6];
+        int[] ids = new int[3];
+        assertEquals(3, queue.drain(xy, ids, 3));
+        assertArrayEquals(new int[]{0, 1, 2}, ids);
+        assertArrayEquals(new float[]{0, 0, 10, 100, 20, 200}, xy, 0);
+        assertEquals(2, queue.drain(xy, null, 3));
+        assertEquals(30, xy[0], 0);
+        assertEquals(400, xy[3], 0);
+        assertEquals(0, queue.size());
+        assertEquals(0, queue.drain(xy, ids, 3));
+    }
+
+    @Test
+    public void offer_failsWhenFull_andDropOldestMakesRoom() {
+        PointQueue queue = new PointQueue(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(queue.offer(i, i, i));
+        }
+        assertFalse(queue.offer(4, 4, 4));
+        assertTrue(queue.dropOldest());
+        assertTrue(queue.offer(4, 4, 4));
+        int[] ids = new int[4];
+        assertEquals(4, queue.drain(new float[8], ids, 4));
+        assertArrayEquals(new int[]{1, 2, 3, 4}, ids);
+        assertFalse(queue.dropOldest());
+    }
+
+    @Test
+    public void wrapsAroundManyTimes() {
+        PointQueue queue = new PointQueue(4);
+        float[] xy = new float[2];
+        int[] ids = new int[1];
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(queue.offer(i, i, -i));
+            assertEquals(1, queue.drain(xy, ids, 1));
+            assertEquals(i, ids[0]);
+            assertEquals(-i, xy[1], 0);
+        }
+    }
+
+    @Test
+    public void concurrentProducers_noLossAndPerProducerOrder() throws Exception {
+        final int producers = 4;
+        final int perProducer = 50000;
+        final PointQueue queue = new PointQueue(1024);
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            final int producer = p;
+            threads[p] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < perProducer; i++) {
+                        //id高位为生产者，低位为序号
+                        while (!queue.offer(producer << 24 | i, producer, i)) {
+                            Thread.yield();
+                        }
+                    }
+                }
+            });
+            threads[p].start();
+        }
+        start.countDown();
+
+        int[] next = new int[producers];
+        float[] xy = new float[256];
+        int[] ids = new int[128];
+        int total = 0;
+        while (total < producers * perProducer) {
+            int n = queue.drain(xy, ids, 128);
+            for (int i = 0; i < n; i++) {
+                int producer = ids[i] >>> 24;
+                int seq = ids[i] & 0xFFFFFF;
+                assertEquals(next[producer], seq);
+                assertEquals(producer, xy[i * 2], 0);
+                assertEquals(seq, xy[i * 2 + 1], 0);
+                next[producer]++;
+            }
+            total += n;
+            if (n == 0) {
+                Thread.yield();
+            }
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        for (int p = 0; p < producers; p++) {
+            assertEquals(perProducer, next[p]);
+        }
+        assertEquals(0, queue.size());
+    }
+}
@@ -0,0 +1,150 @@
+package com.junmeng.gsv.geometry;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PointStoreTest {
+
+    private static PointStore storeOf(int n) {
+        PointStore store = new PointStore(4);
+        for (int i = 0; i < n; i++) {
+            store.add(i, i * 10);
+        }
+        return store;
+    }
+
+    private static void assertPoints(ReadOnlyPoints points, int n) {
+        assertEquals(n, points.size());
+        for (int i = 0; i < n; i++) {
+            assertEquals(i, points.getX(i), 0);
+            assertEquals(i * 10, points.getY(i), 0);
+        }
+    }
+
+    @Test
+    public void snapshot_notAffectedByAppend() {
+        PointStore store = storeOf(3);
+        PointStore.Snapshot snap = store.snapshot();
+        for (int i = 3; i < 100; i++) {
+            store.add(i, i * 10);
+        }
+        assertPoints(snap, 3);
+        assertPoints(store.snapshot(), 100);
+        assertEquals(snap.getStructureVersion(), store.snapshot().getStructureVersion());
+    }
+
+    @Test
+    public void snapshot_notAffectedByInsert() {
+        PointStore store = storeOf(5);
+        PointStore.Snapshot snap = store.snapshot();
+        store.insert(0, -1, -1);
+        store.insert(3, -2, -2);
+        assertPoints(snap, 5);
+        assertEquals(7, store.size());
+        assertEquals(-1, store.getX(0), 0);
+        assertEquals(-2, store.getX(3), 0);
+        assertNotEquals(snap.getStructureVersion(), store.snapshot().getStructureVersion());
+    }
+
+    @Test
+    public void snapshot_notAffectedByRemoveRange() {
+        PointStore store = storeOf(10);
+        PointStore.Snapshot snap = store.snapshot();
+        store.removeRange(2, 5);
+        assertPoints(snap, 10);
+        assertEquals(7, store.size());
+        assertEquals(5, store.getX(2), 0);
+        store.add(-1, -1);
+        assertPoints(snap, 10);
+    }
+
+    @Test
+    public void snapshot_notAffectedByRemoveLastThenAppend() {
+        PointStore store = storeOf(4);
+        PointStore.Snapshot snap = store.snapshot();
+        assertTrue(store.removeLast());
+        assertTrue(store.removeLast());
+        //追加的点会写在旧快照仍在读取的位置上
+        store.add(-1, -1);
+        store.addAll(new float[]{-2, -2, -3, -3}, 0, 2);
+        assertPoints(snap, 4);
+        assertEquals(5, store.size());
+        assertEquals(-1, store.getX(2), 0);
+        assertEquals(-3, store.getX(4), 0);
+    }
+
+    @Test
+    public void removeLast_onlyShrinks() {
+        PointStore store = storeOf(2);
+        long structure = store.snapshot().getStructureVersion();
+        long move = store.snapshot().getMoveVersion();
+        store.removeLast();
+        assertEquals(1, store.snapshot().size());
+        assertEquals(structure, store.snapshot().getStructureVersion());
+        assertEquals(move, store.snapshot().getMoveVersion());
+        assertFalse(storeOf(0).removeLast());
+    }
+
+    @Test
+    public void appendOverRemovedSlot_bumpsMoveVersion() {
+        PointStore store = storeOf(3);
+        store.removeLast();
+        long move = store.snapshot().getMoveVersion();
+        //序号2在旧快照中是另一个点
+        store.add(-1, -1);
+        assertNotEquals(move, store.snapshot().getMoveVersion());
+        move = store.snapshot().getMoveVersion();
+        store.add(-2, -2);
+        assertEquals(move, store.snapshot().getMoveVersion());
+    }
+
+    @Test
+    public void clear_keepsOldSnapshot() {
+        PointStore store = storeOf(6);
+        PointStore.Snapshot snap = store.snapshot();
+        store.clear();
+        store.add(-1, -1);
+        assertPoints(snap, 6);
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    public void snapshot_notAffectedBySetAndSetAll() {
+        PointStore store = storeOf(4);
+        PointStore.Snapshot snap = store.snapshot();
+        store.set(1, -1, -1);
+        PointStore.Snapshot afterSet = store.snapshot();
+        store.setAll(new int[]{0, 3}, new float[]{-2, -2, -3, -3}, 2);
+        assertPoints(snap, 4);
+        assertEquals(-1, afterSet.getX(1), 0);
+        assertEquals(0, afterSet.getX(0), 0);
+        assertEquals(-2, store.getX(0), 0);
+        assertEquals(-3, store.getY(3), 0);
+        assertEquals(snap.getStructureVersion(), store.snapshot().getStructureVersion());
+    }
+
+    @Test
+    public void ids_followStructuralChanges() {
+        PointStore store = new PointStore();
+        store.add(0, 0, 100);
+        store.add(1, 1);
+        store.add(2, 2, 102);
+        assertEquals(PointStore.NO_ID, store.getId(1));
+        assertEquals(2, store.indexOfId(102));
+        store.remove(0);
+        assertEquals(-1, store.indexOfId(100));
+        assertEquals(1, store.indexOfId(102));
+        store.addAll(new float[]{3, 3}, 0, new int[]{103}, 0, 1);
+        assertEquals(2, store.indexOfId(103));
+    }
+
+    @Test
+    public void everyChange_bumpsVersion() {
+        PointStore store = storeOf(3);
+        long version = store.getVersion();
+        store.set(0, 5, 5);
+        assertTrue(store.getVersion() > version);
+        assertEquals(store.getVersion(), store.snapshot().getVersion());
+    }
+}
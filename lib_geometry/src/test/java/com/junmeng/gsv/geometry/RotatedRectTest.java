@@ -0,0 +1,85 @@
+package com.junmeng.gsv.geometry;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class RotatedRectTest {
+
+    @Test
+    public void unrotated_containsLeftTopEdges_butNotRightBottom() {
+        RotatedRect rect = new RotatedRect();
+        rect.set(0, 0, 100, 50, 0);
+        assertTrue(rect.contains(0, 0));
+        assertTrue(rect.contains(0, 49.9f));
+        assertTrue(rect.contains(99.9f, 0));
+        assertFalse(rect.contains(100, 10));
+        assertFalse(rect.contains(10, 50));
+        assertFalse(rect.contains(100, 50));
+        assertFalse(rect.contains(-0.1f, 10));
+        assertFalse(rect.contains(10, -0.1f));
+    }
+
+    @Test
+    public void fullTurn_keepsHalfOpenEdgeRule() {
+        RotatedRect rect = new RotatedRect();
+        rect.set(0, 0, 100, 50, 360);
+        assertTrue(rect.contains(0, 0));
+        assertFalse(rect.contains(100, 50));
+    }
+
+    @Test
+    public void emptyRect_containsNothing() {
+        RotatedRect rect = new RotatedRect();
+        rect.set(10, 10, 10, 20, 0);
+        assertFalse(rect.contains(10, 15));
+        rect.set(10, 20, 20, 10, 45);
+        assertFalse(rect.contains(15, 15));
+    }
+
+    @Test
+    public void rotated_containsByRotatedShape() {
+        RotatedRect rect = new RotatedRect();
+        rect.set(0, 0, 100, 20, 90);//中心(50,10)，旋转后x在[40,60]，y在[-40,60]
+        assertEquals(50, rect.getCenterX(), 0);
+        assertEquals(10, rect.getCenterY(), 0);
+        assertTrue(rect.contains(50, 10));
+        assertTrue(rect.contains(50, -30));
+        assertTrue(rect.contains(45, 55));
+        assertFalse(rect.contains(10, 10));
+        assertFalse(rect.contains(90, 10));
+        assertFalse(rect.contains(50, 65));
+    }
+
+    @Test
+    public void rotated_cornersFollowRotation() {
+        RotatedRect rect = new RotatedRect();
+        rect.set(0, 0, 100, 20, 90);
+        assertEquals(60, rect.getCornerX(0), 1e-3f);
+        assertEquals(-40, rect.getCornerY(0), 1e-3f);
+        assertEquals(40, rect.getCornerX(2), 1e-3f);
+        assertEquals(60, rect.getCornerY(2), 1e-3f);
+    }
+
+    @Test
+    public void set_updatesCacheWhenBoundsOrRotationChange() {
+        RotatedRect rect = new RotatedRect();
+        rect.set(0, 0, 100, 20, 90);
+        assertFalse(rect.contains(10, 10));
+        rect.set(0, 0, 100, 20, 0);
+        assertTrue(rect.contains(10, 10));
+        rect.set(200, 0, 300, 20, 0);
+        assertFalse(rect.contains(10, 10));
+        assertTrue(rect.contains(200, 0));
+    }
+
+    @Test
+    public void containsRect_usesClosedEdges() {
+        RotatedRect rect = new RotatedRect();
+        rect.set(0, 0, 100, 50, 0);
+        assertTrue(rect.contains(0, 0, 100, 50));
+        assertTrue(rect.contains(10, 10, 20, 20));
+        assertFalse(rect.contains(-1, 0, 100, 50));
+        assertFalse(rect.contains(0, 0, 101, 50));
+    }
+}